@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Training run for the class data sharing archive: start the AOT-processed
+# application, stop right after the context refresh and dump every loaded
+# class to the archive. Run from the backend directory after `mvn package -Pfast-start`.
+#
+# AOT evaluates @Profile and @ConditionalOnProperty(firma.client.transport) at build
+# time: pass the profiles and the transport the build was processed with. At runtime
+# the application refuses to start with a different firma.client.transport.
+#
+# Usage: scripts/cds-archive.sh <application jar> <archive> [spring profiles] [client transport]
+set -euo pipefail
+
+JAR=${1:?application jar}
+ARCHIVE=${2:?archive file}
+PROFILES=${3:-default}
+TRANSPORT=${4:-blocking}
+LIB_DIR=$(dirname "$JAR")/lib
+
+rm -f "$ARCHIVE"
+SPRING_DATASOURCE_URL=jdbc:h2:mem:cds-training \
+java -XX:ArchiveClassesAtExit="$ARCHIVE" \
+     -Dspring.context.exit=onRefresh \
+     -Dspring.aot.enabled=true \
+     -Dspring.main.lazy-initialization=true \
+     -Dspring.profiles.active="$PROFILES" \
+     -Dfirma.client.transport="$TRANSPORT" \
+     -Dspring.main.banner-mode=off \
+     -cp "$JAR:$LIB_DIR/*" \
+     com.openapi.firma.FirmaBackendApplication
+
+echo "CDS archive written to $ARCHIVE ($(du -h "$ARCHIVE" | cut -f1))"
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Startup benchmark: boots the AOT + CDS build several times on a random port
+# and fails when the median time until "Started" exceeds the threshold.
+#
+# Usage: scripts/startup-benchmark.sh <application jar> <archive> <max ms> [runs] [spring profiles] [client transport]
+set -euo pipefail
+
+JAR=${1:?application jar}
+ARCHIVE=${2:?archive file}
+MAX_MS=${3:?max startup time in ms}
+RUNS=${4:-5}
+PROFILES=${5:-default}
+TRANSPORT=${6:-blocking}
+LIB_DIR=$(dirname "$JAR")/lib
+LOG=$(mktemp)
+trap 'rm -f "$LOG"' EXIT
+
+times=()
+for run in $(seq 1 "$RUNS"); do
+    SPRING_DATASOURCE_URL="jdbc:h2:mem:startup-benchmark-$run" \
+    java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto \
+         -Dspring.aot.enabled=true \
+         -Dspring.main.lazy-initialization=true \
+         -Dspring.profiles.active="$PROFILES" \
+         -Dfirma.client.transport="$TRANSPORT" \
+         -Dspring.main.banner-mode=off \
+         -Dserver.port=0 \
+         -Dfirma.outbox.spool-dir="$(dirname "$JAR")/benchmark-outbox" \
+         -cp "$JAR:$LIB_DIR/*" \
+         com.openapi.firma.FirmaBackendApplication > "$LOG" 2>&1 &
+    pid=$!
+
+    started=""
+    for _ in $(seq 1 600); do
+        started=$(grep -o 'process running for [0-9.]*' "$LOG" | grep -o '[0-9.]*$' || true)
+        if [ -n "$started" ] || ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.1
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    if [ -z "$started" ]; then
+        echo "Run $run: application did not start" >&2
+        tail -50 "$LOG" >&2
+        exit 1
+    fi
+    ms=$(awk -v s="$started" 'BEGIN { printf "%d", s * 1000 }')
+    echo "Run $run: started in ${ms} ms"
+    times+=("$ms")
+done
+
+median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }')
+echo "Median startup: ${median} ms (limit ${MAX_MS} ms)"
+if [ "$median" -gt "$MAX_MS" ]; then
+    echo "Startup time regression: ${median} ms > ${MAX_MS} ms" >&2
+    exit 1
+fi
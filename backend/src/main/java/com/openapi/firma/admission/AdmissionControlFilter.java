@@ -0,0 +1,103 @@
+package com.openapi.firma.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.compression.RequestDecompressionFilter;
+import com.openapi.firma.config.AdmissionProperties;
+import com.openapi.firma.dto.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Admission control for POST /firma and template uploads: each upload reserves
+ * memory budget proportional to its body size before the body is read, so a
+ * burst of large contracts queues up instead of exhausting the heap.
+ * Requests on a stored template carry no document and are not admitted here.
+ * Runs before request decompression so a gzip body is weighed by its
+ * compressed length, scaled by the expected inflation. The decompression
+ * filter stops inflating at the size the reservation was made for.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute with the decompressed body size the reservation covers, in bytes
+     */
+    public static final String ADMITTED_BODY_SIZE = AdmissionControlFilter.class.getName() + ".ADMITTED_BODY_SIZE";
+
+    private static final Set<String> UPLOAD_PATHS = Set.of("/firma", "/firma/templates");
+
+    private final AdmissionProperties properties;
+    private final MemoryBudget memoryBudget;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !UPLOAD_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long weight = weightOf(request);
+        MemoryBudget.Reservation reservation = reserve(weight);
+        if (reservation == null) {
+            reject(response);
+            return;
+        }
+        request.setAttribute(ADMITTED_BODY_SIZE, (long) (weight / properties.getWeightFactor()));
+
+        try (reservation) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private MemoryBudget.Reservation reserve(long weight) {
+        try {
+            return memoryBudget.tryReserve(weight, properties.getMaxWait());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private long weightOf(HttpServletRequest request) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            return properties.getUnknownLengthWeight().toBytes();
+        }
+        // Only gzip is inflated downstream: identity is read as is, anything else is rejected unread
+        double factor = RequestDecompressionFilter.isGzip(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                ? properties.getEncodedWeightFactor()
+                : properties.getWeightFactor();
+        return (long) (contentLength * factor);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfter().toSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Server is busy processing other uploads, retry later"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.openapi.firma.admission;
+
+import com.openapi.firma.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global pool of heap reserved for large uploads.
+ * Reservations are granted in FIFO order; a request larger than the whole
+ * pool is clamped to it and therefore runs alone.
+ */
+@Slf4j
+@Component
+public class MemoryBudget {
+
+    private static final long UNIT = 1024;
+
+    private final int totalUnits;
+    private final Semaphore units;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public MemoryBudget(AdmissionProperties properties, MeterRegistry registry) {
+        this.totalUnits = (int) Math.min(Integer.MAX_VALUE, properties.getMemoryBudget().toBytes() / UNIT);
+        this.units = new Semaphore(totalUnits, true);
+
+        Gauge.builder("firma.admission.budget.used", this, MemoryBudget::usedBytes)
+                .baseUnit("bytes")
+                .description("Upload memory budget currently reserved")
+                .register(registry);
+        Gauge.builder("firma.admission.budget.total", this, budget -> (double) budget.totalUnits * UNIT)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("firma.admission.queue", waiting, AtomicInteger::get)
+                .description("Uploads waiting for memory budget")
+                .register(registry);
+        this.waitTimer = Timer.builder("firma.admission.wait").register(registry);
+        this.admitted = Counter.builder("firma.admission.requests").tag("outcome", "admitted").register(registry);
+        this.rejected = Counter.builder("firma.admission.requests").tag("outcome", "rejected").register(registry);
+    }
+
+    /**
+     * Reserve {@code bytes} of budget, waiting at most {@code maxWait}.
+     *
+     * @return the reservation to release, or {@code null} if the deadline passed
+     */
+    public Reservation tryReserve(long bytes, Duration maxWait) throws InterruptedException {
+        int requested = (int) Math.max(1, Math.min(totalUnits, (bytes + UNIT - 1) / UNIT));
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean granted;
+        try {
+            granted = units.tryAcquire(requested, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!granted) {
+            rejected.increment();
+            log.warn("Upload of {} bytes rejected: memory budget exhausted ({} of {} KiB in use, {} waiting)",
+                    bytes, totalUnits - units.availablePermits(), totalUnits, waiting.get());
+            return null;
+        }
+        admitted.increment();
+        return new Reservation(requested);
+    }
+
+    public double usedBytes() {
+        return (double) (totalUnits - units.availablePermits()) * UNIT;
+    }
+
+    /**
+     * Budget held by one request; released exactly once
+     */
+    public final class Reservation implements AutoCloseable {
+        private final int reserved;
+        private boolean released;
+
+        private Reservation(int reserved) {
+            this.reserved = reserved;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                units.release(reserved);
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.openapi.firma.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Memory-mapped open-addressing hash table locating the documents of the cold tier.
+ * Each 32 byte slot holds the 64-bit hash of a document id and where its record is:
+ * <pre>
+ * long hash | long offset | long storedAt | int segment | int recordLength
+ * </pre>
+ * Lookups probe linearly from the hash and cost no heap; the caller confirms a
+ * candidate against the id stored in the record header, so hash collisions are
+ * harmless. The table doubles when 70% of the slots are used.
+ * <p>
+ * The file is only trusted after a clean shutdown: it is marked dirty while open,
+ * and a dirty or missing index is rebuilt from the segments.
+ */
+final class ArchiveIndex implements Closeable {
+
+    private static final int MAGIC = 0x46494458;
+    private static final int HEADER = 64;
+    private static final int SLOT = 32;
+    private static final int CLEAN_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int DELETED_OFFSET = 16;
+
+    private static final long EMPTY = 0;
+    private static final long DELETED = 1;
+
+    /**
+     * 1 GiB of slots, the largest table a single mapping holds
+     */
+    static final int MAX_CAPACITY = 1 << 25;
+
+    private final Path file;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final boolean restored;
+
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int size;
+    private int deleted;
+
+    private ArchiveIndex(Path file, int initialCapacity) throws IOException {
+        this.file = file;
+        this.restored = tryRestore();
+        if (!restored) {
+            create(file, capacity(initialCapacity));
+        }
+        markClean(false);
+    }
+
+    /**
+     * Open the index, or start an empty one when it cannot be trusted; see {@link #restored()}
+     */
+    static ArchiveIndex open(Path file, int initialCapacity) throws IOException {
+        return new ArchiveIndex(file, initialCapacity);
+    }
+
+    /**
+     * False if the index was created empty and must be filled from the segments
+     */
+    boolean restored() {
+        return restored;
+    }
+
+    static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        // 0 and 1 mark empty and deleted slots
+        return h == EMPTY || h == DELETED ? h + 2 : h;
+    }
+
+    /**
+     * The first entry with this hash accepted by {@code matcher}, or null
+     */
+    Entry find(long hash, Matcher matcher) throws IOException {
+        lock.readLock().lock();
+        try {
+            int mask = capacity - 1;
+            for (int i = (int) hash & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+                long slotHash = map.getLong(slot(i));
+                if (slotHash == EMPTY) {
+                    return null;
+                }
+                if (slotHash == hash) {
+                    Entry entry = read(i);
+                    if (matcher.matches(entry)) {
+                        return entry;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void insert(long hash, int segment, long offset, int recordLength, long storedAt) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if ((long) (size + deleted + 1) * 10 > (long) capacity * 7) {
+                // Mostly deleted slots: rehash at the same size to drop them
+                resize((long) (size + 1) * 20 > (long) capacity * 7 ? capacity * 2 : capacity);
+            }
+            int mask = capacity - 1;
+            int i = (int) hash & mask;
+            while (true) {
+                long slotHash = map.getLong(slot(i));
+                if (slotHash == EMPTY || slotHash == DELETED) {
+                    if (slotHash == DELETED) {
+                        deleted--;
+                    }
+                    write(i, hash, segment, offset, recordLength, storedAt);
+                    size++;
+                    writeCounts();
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Point an entry at the copy of its record in another segment
+     *
+     * @return false if the entry was removed or moved meanwhile
+     */
+    boolean relocate(Entry entry, int segment, long offset) {
+        lock.writeLock().lock();
+        try {
+            int i = locate(entry);
+            if (i < 0) {
+                return false;
+            }
+            write(i, entry.hash(), segment, offset, entry.recordLength(), entry.storedAt());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            int i = locate(entry);
+            if (i < 0) {
+                return false;
+            }
+            map.putLong(slot(i), DELETED);
+            size--;
+            deleted++;
+            writeCounts();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries accepted by {@code filter}, in slot order from {@code fromSlot}
+     */
+    List<Entry> collect(int fromSlot, Predicate<Entry> filter, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (int i = fromSlot; i < capacity && entries.size() < limit; i++) {
+                long slotHash = map.getLong(slot(i));
+                if (slotHash != EMPTY && slotHash != DELETED) {
+                    Entry entry = read(i);
+                    if (filter.test(entry)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void forEach(Consumer<Entry> action) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < capacity; i++) {
+                long slotHash = map.getLong(slot(i));
+                if (slotHash != EMPTY && slotHash != DELETED) {
+                    action.accept(read(i));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void force() {
+        lock.readLock().lock();
+        try {
+            map.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            map.force();
+            markClean(true);
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean tryRestore() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        long length = Files.size(file);
+        if (length < HEADER || length > HEADER + (long) MAX_CAPACITY * SLOT) {
+            return false;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        int storedCapacity = map.getInt(CAPACITY_OFFSET);
+        boolean valid = map.getInt(0) == MAGIC
+                && map.getInt(CLEAN_OFFSET) == 1
+                && Integer.bitCount(storedCapacity) == 1
+                && length == HEADER + (long) storedCapacity * SLOT;
+        if (!valid) {
+            channel.close();
+            return false;
+        }
+        capacity = storedCapacity;
+        size = map.getInt(SIZE_OFFSET);
+        deleted = map.getInt(DELETED_OFFSET);
+        return true;
+    }
+
+    private void create(Path target, int newCapacity) throws IOException {
+        Files.deleteIfExists(target);
+        channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file, which reads as zeros: every slot starts empty
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) newCapacity * SLOT);
+        capacity = newCapacity;
+        size = 0;
+        deleted = 0;
+        map.putInt(0, MAGIC);
+        map.putInt(CAPACITY_OFFSET, capacity);
+        writeCounts();
+    }
+
+    /**
+     * Rehash every live entry into a new file, then swap it in; deleted slots are dropped
+     */
+    private void resize(int newCapacity) throws IOException {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IOException("Archive index full: " + size + " documents");
+        }
+        Path resized = file.resolveSibling(file.getFileName() + ".resize");
+        FileChannel oldChannel = channel;
+        MappedByteBuffer old = map;
+        int oldCapacity = capacity;
+
+        Files.deleteIfExists(resized);
+        try (FileChannel target = FileChannel.open(resized,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer next = target.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) newCapacity * SLOT);
+            int mask = newCapacity - 1;
+            for (int i = 0; i < oldCapacity; i++) {
+                long slotHash = old.getLong(slot(i));
+                if (slotHash == EMPTY || slotHash == DELETED) {
+                    continue;
+                }
+                int j = (int) slotHash & mask;
+                while (next.getLong(slot(j)) != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                next.put(slot(j), old, slot(i), SLOT);
+            }
+            next.putInt(0, MAGIC);
+            next.putInt(CAPACITY_OFFSET, newCapacity);
+            next.putInt(SIZE_OFFSET, size);
+            next.putInt(DELETED_OFFSET, 0);
+            next.force();
+        }
+
+        oldChannel.close();
+        Files.move(resized, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        capacity = newCapacity;
+        deleted = 0;
+        markClean(false);
+    }
+
+    private int locate(Entry entry) {
+        int i = entry.slot();
+        if (i >= capacity) {
+            return -1;
+        }
+        // A resize may have moved the entry: probe from its hash
+        if (!sameEntry(i, entry)) {
+            int mask = capacity - 1;
+            i = (int) entry.hash() & mask;
+            for (int probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+                long slotHash = map.getLong(slot(i));
+                if (slotHash == EMPTY) {
+                    return -1;
+                }
+                if (sameEntry(i, entry)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return i;
+    }
+
+    private boolean sameEntry(int i, Entry entry) {
+        int base = slot(i);
+        return map.getLong(base) == entry.hash()
+                && map.getLong(base + 8) == entry.offset()
+                && map.getInt(base + 24) == entry.segment();
+    }
+
+    private Entry read(int i) {
+        int base = slot(i);
+        return new Entry(i, map.getLong(base), map.getInt(base + 24), map.getLong(base + 8),
+                map.getInt(base + 28), map.getLong(base + 16));
+    }
+
+    private void write(int i, long hash, int segment, long offset, int recordLength, long storedAt) {
+        int base = slot(i);
+        map.putLong(base + 8, offset);
+        map.putLong(base + 16, storedAt);
+        map.putInt(base + 24, segment);
+        map.putInt(base + 28, recordLength);
+        // The hash makes the slot visible, write it last
+        map.putLong(base, hash);
+    }
+
+    private void writeCounts() {
+        map.putInt(SIZE_OFFSET, size);
+        map.putInt(DELETED_OFFSET, deleted);
+    }
+
+    private void markClean(boolean clean) {
+        map.putInt(CLEAN_OFFSET, clean ? 1 : 0);
+        map.force();
+    }
+
+    private static int slot(int i) {
+        return HEADER + i * SLOT;
+    }
+
+    private static int capacity(int requested) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(requested, MAX_CAPACITY)));
+        return capacity < requested && capacity < MAX_CAPACITY ? capacity << 1 : capacity;
+    }
+
+    @FunctionalInterface
+    interface Matcher {
+        boolean matches(Entry entry) throws IOException;
+    }
+
+    record Entry(int slot, long hash, int segment, long offset, int recordLength, long storedAt) {
+    }
+}
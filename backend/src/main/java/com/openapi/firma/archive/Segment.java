@@ -0,0 +1,337 @@
+package com.openapi.firma.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One append-only segment file of the cold tier. Every document is a record
+ * compressed on its own, so reading one document inflates only its bytes:
+ * <pre>
+ * int magic | byte codec | short idLength | long storedAt | long rawLength | long dataLength | int crc32 | id | data
+ * </pre>
+ * Appends are serialized by the archive; reads use positional channel reads
+ * and may run concurrently with them.
+ */
+final class Segment implements Closeable {
+
+    static final int MAGIC = 0x46534731;
+    static final byte STORED = 0;
+    static final byte DEFLATE = 1;
+    static final int FIXED_HEADER = 4 + 1 + 2 + 8 + 8 + 8 + 4;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int number;
+    private final Path file;
+    private final FileChannel channel;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private volatile long size;
+
+    private Segment(int number, Path file, FileChannel channel) throws IOException {
+        this.number = number;
+        this.file = file;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    static Segment open(int number, Path file) throws IOException {
+        return new Segment(number, file, FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    int number() {
+        return number;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long liveBytes() {
+        return liveBytes.get();
+    }
+
+    void addLiveBytes(long delta) {
+        liveBytes.addAndGet(delta);
+    }
+
+    /**
+     * Compress {@code content} into a new record at the end of the segment.
+     * The header is written last, once the lengths and the checksum are known.
+     */
+    Header append(String id, long storedAt, InputStream content, int compressionLevel) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        long offset = size;
+        long dataStart = offset + FIXED_HEADER + idBytes.length;
+        byte codec = compressionLevel > 0 ? DEFLATE : STORED;
+
+        CheckedInputStream checked = new CheckedInputStream(content, new CRC32());
+        long rawLength;
+        channel.position(dataStart);
+        // Not closed: closing the channel stream would close the segment
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        if (codec == DEFLATE) {
+            Deflater deflater = new Deflater(compressionLevel);
+            try {
+                DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+                rawLength = checked.transferTo(deflated);
+                deflated.finish();
+            } finally {
+                deflater.end();
+            }
+        } else {
+            rawLength = checked.transferTo(out);
+        }
+        out.flush();
+        long dataLength = channel.position() - dataStart;
+
+        Header header = new Header(offset, id, codec, storedAt, rawLength, dataLength,
+                (int) checked.getChecksum().getValue(), idBytes.length);
+        writeFully(header.encode(idBytes), offset);
+        size = dataStart + dataLength;
+        return header;
+    }
+
+    /**
+     * Copy a record of another segment as is, without inflating it
+     *
+     * @return the header at its new offset
+     */
+    Header copy(Segment source, Header header) throws IOException {
+        long offset = size;
+        long length = header.recordLength();
+        long copied = 0;
+        channel.position(offset);
+        while (copied < length) {
+            long count = source.channel.transferTo(header.offset() + copied, length - copied, channel);
+            if (count <= 0) {
+                throw new EOFException("Record " + header.id() + " truncated in " + source.file);
+            }
+            copied += count;
+        }
+        size = offset + length;
+        return header.at(offset);
+    }
+
+    Header readHeader(long offset) throws IOException {
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER);
+        readFully(fixed, offset);
+        fixed.flip();
+        if (fixed.getInt() != MAGIC) {
+            throw new IOException("No record at offset " + offset + " of " + file);
+        }
+        byte codec = fixed.get();
+        int idLength = Short.toUnsignedInt(fixed.getShort());
+        long storedAt = fixed.getLong();
+        long rawLength = fixed.getLong();
+        long dataLength = fixed.getLong();
+        int crc = fixed.getInt();
+        if ((codec != STORED && codec != DEFLATE) || rawLength < 0 || dataLength < 0) {
+            throw new IOException("Corrupt record header at offset " + offset + " of " + file);
+        }
+
+        ByteBuffer idBytes = ByteBuffer.allocate(idLength);
+        readFully(idBytes, offset + FIXED_HEADER);
+        String id = new String(idBytes.array(), StandardCharsets.UTF_8);
+        return new Header(offset, id, codec, storedAt, rawLength, dataLength, crc, idLength);
+    }
+
+    /**
+     * The document of a record, inflated while it is read and checked against its CRC at the end
+     */
+    InputStream openContent(Header header) {
+        InputStream data = new BufferedInputStream(
+                new RangeInputStream(channel, header.dataOffset(), header.dataLength()), BUFFER_SIZE);
+        if (header.codec() == DEFLATE) {
+            data = new InflaterInputStream(data);
+        }
+        return new VerifyingInputStream(data, header);
+    }
+
+    /**
+     * Visit every complete record in file order
+     *
+     * @return the end of the last complete record; less than {@link #size()} after a torn append
+     */
+    long scan(RecordVisitor visitor) throws IOException {
+        long offset = 0;
+        while (offset < size) {
+            Header header;
+            try {
+                header = readHeader(offset);
+            } catch (IOException e) {
+                return offset;
+            }
+            if (offset + header.recordLength() > size) {
+                return offset;
+            }
+            visitor.visit(header);
+            offset += header.recordLength();
+        }
+        return offset;
+    }
+
+    void truncate(long length) throws IOException {
+        channel.truncate(length);
+        size = length;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + file + " at " + position);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(Header header) throws IOException;
+    }
+
+    record Header(long offset, String id, byte codec, long storedAt, long rawLength, long dataLength,
+                  int crc, int idLength) {
+
+        long dataOffset() {
+            return offset + FIXED_HEADER + idLength;
+        }
+
+        long recordLength() {
+            return FIXED_HEADER + idLength + dataLength;
+        }
+
+        Header at(long newOffset) {
+            return new Header(newOffset, id, codec, storedAt, rawLength, dataLength, crc, idLength);
+        }
+
+        ByteBuffer encode(byte[] idBytes) {
+            ByteBuffer buffer = ByteBuffer.allocate(FIXED_HEADER + idBytes.length);
+            buffer.putInt(MAGIC)
+                    .put(codec)
+                    .putShort((short) idBytes.length)
+                    .putLong(storedAt)
+                    .putLong(rawLength)
+                    .putLong(dataLength)
+                    .putInt(crc)
+                    .put(idBytes);
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * A byte range of the segment, read with positional reads so readers share the channel
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.end = position + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (count < 0) {
+                throw new EOFException("Segment truncated");
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+
+    private static final class VerifyingInputStream extends FilterInputStream {
+        private final Header header;
+        private final CRC32 crc = new CRC32();
+        private long count;
+
+        VerifyingInputStream(InputStream in, Header header) {
+            super(in);
+            this.header = header;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                verify();
+            } else {
+                crc.update(b);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                verify();
+            } else {
+                crc.update(b, off, n);
+                count += n;
+            }
+            return n;
+        }
+
+        private void verify() throws IOException {
+            if (count != header.rawLength() || (int) crc.getValue() != header.crc()) {
+                throw new IOException("Archived document " + header.id() + " is corrupt");
+            }
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.openapi.firma.archive;
+
+import com.openapi.firma.client.SignedDocumentSink;
+import com.openapi.firma.config.ArchiveProperties;
+import com.openapi.firma.config.PayloadProperties;
+import com.openapi.firma.payload.DocumentPayload;
+import com.openapi.firma.payload.SpillingOutputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local long-term store of signed documents, in two tiers.
+ * <p>
+ * Hot: a document downloaded from firmadigitale is written as a file of its own.
+ * Cold: once older than {@code hot-retention} it is deflated into the current
+ * append-only segment file, and an {@link ArchiveIndex} maps its id to the
+ * record. A read from either tier touches only that document.
+ * <p>
+ * The maintenance run packs aged hot files, deletes documents past
+ * {@code retention} and rewrites segments that are mostly dead. A packed hot
+ * file is deleted one run later, and a rewritten segment stays readable for
+ * one run, so reads in progress are never cut short.
+ */
+@Slf4j
+@Service
+public class SignedDocumentArchive {
+
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,199}");
+    private static final String HOT_SUFFIX = ".pdf";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int EXPIRE_BATCH = 10_000;
+
+    private final ArchiveProperties properties;
+    private final PayloadProperties payloadProperties;
+    private final Path hotDir;
+    private final Path segmentDir;
+    private final Path indexFile;
+
+    // Appends, maintenance and index inserts; reads need no lock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Segment> retired = new ConcurrentHashMap<>();
+    private volatile Segment active;
+    private volatile ArchiveIndex index;
+
+    private final Counter hotReads;
+    private final Counter coldReads;
+    private final Counter misses;
+    private final Counter stored;
+    private final Counter sealed;
+    private final Counter expired;
+    private final Counter reclaimed;
+
+    public SignedDocumentArchive(ArchiveProperties properties, PayloadProperties payloadProperties,
+                                 MeterRegistry registry) {
+        this.properties = properties;
+        this.payloadProperties = payloadProperties;
+        Path dir = Path.of(properties.getDir());
+        this.hotDir = dir.resolve("hot");
+        this.segmentDir = dir.resolve("segments");
+        this.indexFile = dir.resolve("index.dat");
+
+        this.hotReads = Counter.builder("firma.archive.reads").tag("tier", "hot").register(registry);
+        this.coldReads = Counter.builder("firma.archive.reads").tag("tier", "cold").register(registry);
+        this.misses = Counter.builder("firma.archive.reads").tag("tier", "miss").register(registry);
+        this.stored = Counter.builder("firma.archive.stored").register(registry);
+        this.sealed = Counter.builder("firma.archive.sealed")
+                .description("Documents packed from the hot tier into segments")
+                .register(registry);
+        this.expired = Counter.builder("firma.archive.expired")
+                .description("Documents deleted past the retention")
+                .register(registry);
+        this.reclaimed = Counter.builder("firma.archive.compaction.reclaimed")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("firma.archive.documents", this, archive -> archive.index != null ? archive.index.size() : 0)
+                .description("Documents in the cold tier")
+                .register(registry);
+        Gauge.builder("firma.archive.segments", segments, Map::size).register(registry);
+        Gauge.builder("firma.archive.segment.bytes", this,
+                        archive -> archive.segments.values().stream().mapToLong(Segment::size).sum())
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("firma.archive.live.bytes", this,
+                        archive -> archive.segments.values().stream().mapToLong(Segment::liveBytes).sum())
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(hotDir);
+        Files.createDirectories(segmentDir);
+        try (Stream<Path> files = Files.list(segmentDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    int number = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(number, Segment.open(number, file));
+                }
+            }
+        }
+
+        index = ArchiveIndex.open(indexFile, properties.getIndexInitialCapacity());
+        if (!index.restored()) {
+            rebuildIndex();
+        }
+        index.forEach(entry -> {
+            Segment segment = segments.get(entry.segment());
+            if (segment != null) {
+                segment.addLiveBytes(entry.recordLength());
+            }
+        });
+
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        log.info("Signed document archive open in {}: {} packed documents in {} segments",
+                properties.getDir(), index.size(), segments.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (index == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+            closeRetired();
+            index.close();
+        } catch (IOException e) {
+            log.warn("Archive not closed cleanly, the index will be rebuilt at the next start: {}", e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Whether a document id can be archived: ids become file names
+     */
+    public static boolean isArchivable(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    /**
+     * Keep a downloaded signed document; no-op if it is already archived
+     */
+    public void store(String id, DocumentPayload content) throws IOException {
+        if (!properties.isEnabled() || content == null || content.isEmpty() || !isArchivable(id)) {
+            return;
+        }
+        Path hot = hotFile(id);
+        if (Files.exists(hot) || locate(id) != null) {
+            return;
+        }
+        Path staged = Files.createTempFile(hotDir, "store-", ".tmp");
+        try {
+            content.copyTo(staged);
+            Files.move(staged, hot, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        stored.increment();
+        log.debug("Archived signed document {} ({} bytes)", id, content.size());
+    }
+
+    /**
+     * The archived document; packed documents are inflated into memory or, above the
+     * payload memory threshold, into a temp file
+     */
+    public Optional<DocumentPayload> find(String id) throws IOException {
+        if (!properties.isEnabled() || !isArchivable(id)) {
+            return Optional.empty();
+        }
+        Path hot = hotFile(id);
+        if (Files.exists(hot)) {
+            hotReads.increment();
+            return Optional.of(DocumentPayload.fromFile(hot));
+        }
+
+        Located located = locate(id);
+        if (located == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        SpillingOutputStream content = new SpillingOutputStream(
+                payloadProperties.getMemoryThreshold().toBytes(), Path.of(payloadProperties.getTempDir()));
+        try (InputStream in = located.segment().openContent(located.header())) {
+            in.transferTo(content);
+        } catch (IOException | RuntimeException e) {
+            content.discard();
+            throw e;
+        }
+        coldReads.increment();
+        return Optional.of(content.toPayload());
+    }
+
+    /**
+     * Write the archived document to {@code sink}, like {@code FirmaClient.streamSignedDocument}
+     *
+     * @return false if the document is not archived
+     */
+    public boolean streamTo(String id, SignedDocumentSink sink) throws IOException {
+        if (!properties.isEnabled() || !isArchivable(id)) {
+            return false;
+        }
+        InputStream content = openContent(id);
+        if (content == null) {
+            return false;
+        }
+
+        boolean complete = false;
+        try (InputStream in = content) {
+            OutputStream out = sink.open(id);
+            in.transferTo(out);
+            out.flush();
+            complete = true;
+        } finally {
+            sink.close(id, complete);
+        }
+        return true;
+    }
+
+    /**
+     * The document from whichever tier holds it, or null if it is not archived
+     */
+    private InputStream openContent(String id) throws IOException {
+        try {
+            InputStream in = Files.newInputStream(hotFile(id));
+            hotReads.increment();
+            return in;
+        } catch (NoSuchFileException e) {
+            Located located = locate(id);
+            if (located == null) {
+                misses.increment();
+                return null;
+            }
+            InputStream in = located.segment().openContent(located.header());
+            coldReads.increment();
+            return in;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${firma.archive.maintenance-interval:PT1H}",
+            initialDelayString = "${firma.archive.maintenance-interval:PT1H}")
+    public void maintain() {
+        if (!properties.isEnabled() || index == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            closeRetired();
+            int packed = sealHotFiles();
+            int deleted = expire();
+            int compacted = compact();
+            index.force();
+            log.info("Archive maintenance: {} documents packed, {} expired, {} segments compacted in {} ms",
+                    packed, deleted, compacted, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Archive maintenance failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Pack hot files older than the hot retention into the current segment.
+     * Files packed by an earlier run are deleted now, files past the retention are dropped.
+     */
+    private int sealHotFiles() throws IOException {
+        Instant now = Instant.now();
+        Instant sealBefore = now.minus(properties.getHotRetention());
+        Instant expireBefore = now.minus(properties.getRetention());
+        int packed = 0;
+        boolean appended = false;
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(hotDir)) {
+            files = listing.toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Instant storedAt;
+            try {
+                storedAt = Files.getLastModifiedTime(file).toInstant();
+            } catch (NoSuchFileException e) {
+                // A store renamed its temp file meanwhile
+                continue;
+            }
+            if (!name.endsWith(HOT_SUFFIX)) {
+                // Leftover of an interrupted store
+                if (storedAt.isBefore(sealBefore)) {
+                    Files.deleteIfExists(file);
+                }
+                continue;
+            }
+            String id = name.substring(0, name.length() - HOT_SUFFIX.length());
+            if (storedAt.isBefore(expireBefore)) {
+                Files.deleteIfExists(file);
+                expired.increment();
+                continue;
+            }
+            if (storedAt.isAfter(sealBefore)) {
+                continue;
+            }
+            if (locate(id) != null) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+
+            rollIfFull();
+            Segment.Header header;
+            try (InputStream in = Files.newInputStream(file)) {
+                header = active.append(id, storedAt.toEpochMilli(), in, properties.getCompressionLevel());
+            }
+            index.insert(ArchiveIndex.hash(id), active.number(), header.offset(),
+                    (int) header.recordLength(), header.storedAt());
+            active.addLiveBytes(header.recordLength());
+            appended = true;
+            packed++;
+            sealed.increment();
+        }
+        if (appended) {
+            active.force();
+        }
+        return packed;
+    }
+
+    private int expire() {
+        long cutoff = Instant.now().minus(properties.getRetention()).toEpochMilli();
+        int count = 0;
+        int from = 0;
+        List<ArchiveIndex.Entry> batch;
+        do {
+            batch = index.collect(from, entry -> entry.storedAt() < cutoff, EXPIRE_BATCH);
+            for (ArchiveIndex.Entry entry : batch) {
+                if (index.remove(entry)) {
+                    Segment segment = segments.get(entry.segment());
+                    if (segment != null) {
+                        segment.addLiveBytes(-entry.recordLength());
+                    }
+                    count++;
+                    expired.increment();
+                }
+                from = entry.slot() + 1;
+            }
+        } while (batch.size() == EXPIRE_BATCH);
+        return count;
+    }
+
+    /**
+     * Drop empty segments and copy the live records of sparse ones to the current segment
+     */
+    private int compact() throws IOException {
+        int compacted = 0;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active) {
+                continue;
+            }
+            if (segment.liveBytes() <= 0) {
+                retire(segment);
+                compacted++;
+                continue;
+            }
+            if (segment.liveBytes() >= segment.size() * properties.getCompactionMinLiveRatio()) {
+                continue;
+            }
+
+            segment.scan(header -> {
+                long hash = ArchiveIndex.hash(header.id());
+                ArchiveIndex.Entry entry = index.find(hash,
+                        e -> e.segment() == segment.number() && e.offset() == header.offset());
+                if (entry == null) {
+                    return;
+                }
+                rollIfFull();
+                Segment.Header moved = active.copy(segment, header);
+                if (index.relocate(entry, active.number(), moved.offset())) {
+                    active.addLiveBytes(moved.recordLength());
+                }
+            });
+            active.force();
+            retire(segment);
+            compacted++;
+        }
+        return compacted;
+    }
+
+    private void retire(Segment segment) throws IOException {
+        segments.remove(segment.number());
+        retired.put(segment.number(), segment);
+        reclaimed.increment(segment.size() - Math.max(0, segment.liveBytes()));
+        Files.deleteIfExists(segment.file());
+        log.debug("Retired archive segment {}", segment.file());
+    }
+
+    /**
+     * Close the segments retired by the previous run; readers had a full interval to finish
+     */
+    private void closeRetired() throws IOException {
+        for (Segment segment : retired.values()) {
+            segment.close();
+        }
+        retired.clear();
+    }
+
+    private void rollIfFull() throws IOException {
+        if (active.size() >= properties.getSegmentMaxSize().toBytes()) {
+            active.force();
+            active = createSegment(active.number() + 1);
+        }
+    }
+
+    private Segment createSegment(int number) throws IOException {
+        Segment segment = Segment.open(number, segmentDir.resolve(String.format("%010d%s", number, SEGMENT_SUFFIX)));
+        segments.put(number, segment);
+        return segment;
+    }
+
+    /**
+     * Fill an empty index from the record headers, after a crash or on a new node.
+     * A torn last record is cut off; documents past the retention are skipped.
+     */
+    private void rebuildIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        long cutoff = Instant.now().minus(properties.getRetention()).toEpochMilli();
+        for (Segment segment : segments.values()) {
+            long end = segment.scan(header -> {
+                if (header.storedAt() < cutoff || locate(header.id()) != null) {
+                    // Expired, or copied by a compaction that did not finish
+                    return;
+                }
+                index.insert(ArchiveIndex.hash(header.id()), segment.number(), header.offset(),
+                        (int) header.recordLength(), header.storedAt());
+            });
+            if (end < segment.size()) {
+                log.warn("Archive segment {} has a torn record at {}, truncating {} bytes",
+                        segment.file(), end, segment.size() - end);
+                segment.truncate(end);
+            }
+        }
+        index.force();
+        log.info("Rebuilt archive index from {} segments: {} documents in {} ms",
+                segments.size(), index.size(), System.currentTimeMillis() - start);
+    }
+
+    private Located locate(String id) throws IOException {
+        Located[] found = new Located[1];
+        index.find(ArchiveIndex.hash(id), entry -> {
+            Segment segment = segment(entry.segment());
+            if (segment == null) {
+                return false;
+            }
+            Segment.Header header = segment.readHeader(entry.offset());
+            if (!header.id().equals(id)) {
+                return false;
+            }
+            found[0] = new Located(segment, header);
+            return true;
+        });
+        return found[0];
+    }
+
+    private Segment segment(int number) {
+        Segment segment = segments.get(number);
+        return segment != null ? segment : retired.get(number);
+    }
+
+    private Path hotFile(String id) {
+        return hotDir.resolve(id + HOT_SUFFIX);
+    }
+
+    private record Located(Segment segment, Segment.Header header) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.openapi.firma.client;
+
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Blocking view of a response body received without blocking. This is a
+ * deliberate bridge: the Base64 document inside the JSON has to be decoded
+ * while it streams, which Jackson's non-blocking parser cannot do, so one
+ * worker reads here while the buffers keep arriving on the event loop.
+ * <p>
+ * Buffers are requested a few at a time as they are consumed, so no more than
+ * {@code prefetch} are held. Unlike a piped stream nothing depends on which
+ * thread delivered them. A failed exchange surfaces as an IOException once the
+ * buffers received before it are read.
+ */
+final class DataBufferInputStream extends InputStream {
+
+    private static final Object COMPLETE = new Object();
+
+    // Up to prefetch buffers plus the terminal signal
+    private final BlockingQueue<Object> signals;
+    private final BaseSubscriber<DataBuffer> subscriber;
+
+    private DataBuffer current;
+    private Throwable failure;
+    private boolean done;
+    private volatile boolean closed;
+
+    DataBufferInputStream(Flux<DataBuffer> body, int prefetch) {
+        this.signals = new ArrayBlockingQueue<>(prefetch + 1);
+        this.subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                subscription.request(prefetch);
+            }
+
+            @Override
+            protected void hookOnNext(DataBuffer buffer) {
+                if (closed) {
+                    DataBufferUtils.release(buffer);
+                    return;
+                }
+                signals.offer(buffer);
+                if (closed) {
+                    // Closed while the buffer was being queued
+                    releaseQueued();
+                }
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                signals.offer(COMPLETE);
+            }
+
+            @Override
+            protected void hookOnError(Throwable error) {
+                signals.offer(error);
+            }
+        };
+        body.subscribe(subscriber);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        DataBuffer buffer = next();
+        if (buffer == null) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.readableByteCount());
+        buffer.read(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        DataBuffer buffer = current;
+        return buffer != null ? buffer.readableByteCount() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        subscriber.dispose();
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+        releaseQueued();
+    }
+
+    /**
+     * @return a buffer with readable bytes, or null at the end of the body
+     */
+    private DataBuffer next() throws IOException {
+        while (current == null || current.readableByteCount() == 0) {
+            if (current != null) {
+                DataBufferUtils.release(current);
+                current = null;
+                subscriber.request(1);
+            }
+            if (done) {
+                if (failure instanceof IOException io) {
+                    throw io;
+                }
+                if (failure != null) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                return null;
+            }
+            Object signal;
+            try {
+                signal = signals.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response body");
+            }
+            if (signal instanceof DataBuffer buffer) {
+                current = buffer;
+            } else {
+                done = true;
+                failure = signal instanceof Throwable error ? error : null;
+            }
+        }
+        return current;
+    }
+
+    private void releaseQueued() {
+        Object signal;
+        while ((signal = signals.poll()) != null) {
+            if (signal instanceof DataBuffer buffer) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
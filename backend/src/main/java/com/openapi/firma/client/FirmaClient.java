@@ -0,0 +1,59 @@
+package com.openapi.firma.client;
+
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Contract of the firmadigitale API as used by the services.
+ * Implementations: {@link OpenApiFirmaClient} (RestTemplate),
+ * {@link ReactiveFirmaClientAdapter} over {@link WebClientFirmaClient}
+ * and {@link MockOpenApiFirmaClient}.
+ */
+public interface FirmaClient {
+
+    /**
+     * POST /firma_elettronica/base - Create signature request
+     */
+    ApiResponse<FirmaResponse> createFirmaRequest(FirmaRequest request);
+
+    /**
+     * GET /firma_elettronica - List all signature requests
+     */
+    ApiResponse<List<FirmaResponse>> getAllFirmaRequests();
+
+    /**
+     * GET /firma_elettronica/{id} - Get signature request by ID
+     */
+    ApiResponse<FirmaResponse> getFirmaRequestById(String id);
+
+    /**
+     * GET /firma_elettronica/{id}/download - Download signed document
+     */
+    DownloadResponse downloadSignedDocument(String id);
+
+    /**
+     * GET /firma_elettronica/{id}/download - Stream the signed document into a sink
+     *
+     * @return false if the response carries no document
+     */
+    boolean streamSignedDocument(String id, SignedDocumentSink sink) throws IOException;
+
+    /**
+     * GET /firma_elettronica/{id}/audit - Get audit trail
+     */
+    ApiResponse<Object> getAuditTrail(String id);
+
+    /**
+     * GET an upstream path and copy the response body unchanged into the target, without data binding
+     *
+     * @return false if this client cannot relay; nothing has been written to the target then
+     */
+    default boolean relay(RelayTarget target, String uriTemplate, Object... uriVariables) throws IOException {
+        return false;
+    }
+}
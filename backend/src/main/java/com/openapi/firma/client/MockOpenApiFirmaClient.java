@@ -1,12 +1,13 @@
 package com.openapi.firma.client;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.openapi.firma.config.OpenApiConfig;
 import com.openapi.firma.dto.*;
+import com.openapi.firma.payload.DocumentPayload;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,12 +22,11 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 @Component
 @Profile("mock")
-public class MockOpenApiFirmaClient extends OpenApiFirmaClient {
+public class MockOpenApiFirmaClient implements FirmaClient {
 
     private final Map<String, FirmaResponse> mockDatabase = new ConcurrentHashMap<>();
 
-    public MockOpenApiFirmaClient(OpenApiConfig config, ObjectMapper objectMapper) {
-        super(config, objectMapper);
+    public MockOpenApiFirmaClient() {
         log.info("MockOpenApiFirmaClient initialized - No real API calls will be made");
     }
 
@@ -149,12 +149,30 @@ public class MockOpenApiFirmaClient extends OpenApiFirmaClient {
         String mockPdfBase64 = "JVBERi0xLjQKJeLjz9MKMSAwIG9iago8PAovVHlwZSAvQ2F0YWxvZwovUGFnZXMgMiAwIFIKPj4KZW5kb2JqCjIgMCBvYmoKPDwKL1R5cGUgL1BhZ2VzCi9LaWRzIFszIDAgUl0KL0NvdW50IDEKL01lZGlhQm94IFswIDAgNTk1IDg0Ml0KPj4KZW5kb2JqCjMgMCBvYmoKPDwKL1R5cGUgL1BhZ2UKL1BhcmVudCAyIDAgUgovUmVzb3VyY2VzIDw8Ci9Gb250IDw8Ci9GMSA0IDAgUgo+Pgo+PgovQ29udGVudHMgNSAwIFIKPj4KZW5kb2JqCjQgMCBvYmoKPDwKL1R5cGUgL0ZvbnQKL1N1YnR5cGUgL1R5cGUxCi9CYXNlRm9udCAvVGltZXMtUm9tYW4KPj4KZW5kb2JqCjUgMCBvYmoKPDwKL0xlbmd0aCA0NAo+PgpzdHJlYW0KQlQKL0YxIDEyIFRmCjEwMCA3MDAgVGQKKE1PQ0sgU0lHTkVEIERPQ1VNRU5UKSBUagpFVAplbmRzdHJlYW0KZW5kb2JqCnhyZWYKMCA2CjAwMDAwMDAwMDAgNjU1MzUgZiAKMDAwMDAwMDAxNSAwMDAwMCBuIAowMDAwMDAwMDY0IDAwMDAwIG4gCjAwMDAwMDAxMzMgMDAwMDAgbiAKMDAwMDAwMDI0NyAwMDAwMCBuIAowMDAwMDAwMzM2IDAwMDAwIG4gCnRyYWlsZXIKPDwKL1NpemUgNgovUm9vdCAxIDAgUgo+PgpzdGFydHhyZWYKNDI5CiUlRU9G";
 
         return DownloadResponse.builder()
-                .content(mockPdfBase64)
+                .content(DocumentPayload.fromBase64(mockPdfBase64))
                 .success(true)
                 .message("Document downloaded successfully (MOCK)")
                 .build();
     }
 
+    @Override
+    public boolean streamSignedDocument(String id, SignedDocumentSink sink) throws IOException {
+        DownloadResponse download = downloadSignedDocument(id);
+        if (!download.isSuccess()) {
+            return false;
+        }
+
+        OutputStream out = sink.open(id);
+        boolean complete = false;
+        try {
+            download.getContent().writeTo(out);
+            complete = true;
+        } finally {
+            sink.close(id, complete);
+        }
+        return true;
+    }
+
     @Override
     public ApiResponse<Object> getAuditTrail(String id) {
         log.info("[MOCK] Fetching audit trail for ID: {}", id);
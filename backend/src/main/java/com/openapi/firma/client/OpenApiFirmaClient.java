@@ -1,26 +1,39 @@
 package com.openapi.firma.client;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.compression.UpstreamCompression;
 import com.openapi.firma.config.OpenApiConfig;
 import com.openapi.firma.dto.*;
+import com.openapi.firma.timing.RequestTimeline;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Component
 @Profile("!mock")
-public class OpenApiFirmaClient {
+@ConditionalOnProperty(name = "firma.client.transport", havingValue = "blocking", matchIfMissing = true)
+public class OpenApiFirmaClient implements FirmaClient {
     @Bean
     public RestTemplate restTemplate() {
         RestTemplate restTemplate = new RestTemplate();
@@ -42,13 +55,25 @@ public class OpenApiFirmaClient {
 
         return restTemplate;
     }
+    // Response headers that describe the body and stay valid when it is relayed unchanged
+    private static final Set<String> RELAYED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES);
+
     private final RestTemplate restTemplate;
+    private final RestTemplate relayTemplate;
     private final OpenApiConfig config;
     private final ObjectMapper objectMapper;
+    private final UpstreamScheduler scheduler;
+
+    @Value("${firma.passthrough.buffer-size:8192}")
+    private int relayBufferSize;
 
-    public OpenApiFirmaClient(OpenApiConfig config, ObjectMapper objectMapper) {
+    public OpenApiFirmaClient(OpenApiConfig config, ObjectMapper objectMapper, UpstreamScheduler scheduler,
+                              UpstreamCompression compression) {
         this.config = config;
         this.objectMapper = objectMapper;
+        this.scheduler = scheduler;
 
         // Create RestTemplate with proper Jackson message converter
         this.restTemplate = new RestTemplate();
@@ -60,6 +85,22 @@ public class OpenApiFirmaClient {
         converters.add(converter);
         converters.addAll(this.restTemplate.getMessageConverters());
         this.restTemplate.setMessageConverters(converters);
+        if (compression.isEnabled()) {
+            this.restTemplate.setRequestFactory(compression.wrap(this.restTemplate.getRequestFactory()));
+        }
+
+        // Relayed responses keep their upstream status, errors included
+        this.relayTemplate = new RestTemplate();
+        this.relayTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(ClientHttpResponse response) {
+            }
+        });
 
         if (config.getApiKey() == null || config.getApiKey().isEmpty()) {
             log.warn("OpenAPI API Key is not configured. Set OPENAPI_API_KEY environment variable.");
@@ -87,15 +128,13 @@ public class OpenApiFirmaClient {
     /**
      * POST /firma_elettronica/base - Create signature request
      */
+    @Override
     public ApiResponse<FirmaResponse> createFirmaRequest(FirmaRequest request) {
         log.info("Creating firma request for document: {}", request.getFilename());
-        request.getMembers().get(0).getSigns().get(0).setPosition("10,15,45,35");
-        // Log content length to verify it's not truncated
-        int contentLength = request.getContent() != null ? request.getContent().length() : 0;
-        log.info("Request content (base64) length: {} characters", contentLength);
-        if (request.getTitle() == null) request.setTitle("");
-        if (request.getDescription() == null) request.setDescription("");
-        if (request.getUi() == null) request.setUi("");
+        long contentSize = request.getContent() != null ? request.getContent().size() : 0;
+        log.info("Request content length: {} bytes (in memory: {})", contentSize,
+                request.getContent() != null && request.getContent().isInMemory());
+        prepareRequest(request);
 
         // Validazione pre-invio
         if (request.getContent() == null || request.getContent().isEmpty()) {
@@ -113,38 +152,25 @@ public class OpenApiFirmaClient {
         HttpHeaders headers = createAuthHeaders();
 
         String url = config.getActiveBaseUrl() + "/firma_elettronica/base";
-        String requestJson = null;
 
         try {
-            // Serialize to JSON string first
-            requestJson = objectMapper.writeValueAsString(request);
-
-            // Log only the size and structure, not the full content
-            log.info("POST {} - JSON size: {} bytes", url, requestJson.length());
+            log.info("POST {}", url);
             log.info("Request headers: {}", headers);
-            System.out.println("LENGTH JSON: " + requestJson.length());
-            // Verify the content field in the JSON
-            int contentStartIdx = requestJson.indexOf("\"content\":\"");
-            if (contentStartIdx != -1) {
-                int contentEndIdx = requestJson.indexOf("\"", contentStartIdx + 11);
-                if (contentEndIdx != -1) {
-                    int jsonContentLength = contentEndIdx - (contentStartIdx + 11);
-                    log.info("Content field in JSON: {} characters", jsonContentLength);
-                    if (jsonContentLength != contentLength) {
-                        log.error("CONTENT TRUNCATION DETECTED! Original: {}, In JSON: {}", contentLength, jsonContentLength);
-                    }
-                }
-            }
-
-            // Send JSON as a String to ensure proper serialization
-            HttpEntity<String> entity = new HttpEntity<>(requestJson, headers);
 
-            ResponseEntity<ApiResponse<FirmaResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    new ParameterizedTypeReference<ApiResponse<FirmaResponse>>() {}
-            );
+            // The Jackson converter streams the document as Base64 straight into the request body
+            HttpEntity<FirmaRequest> entity = new HttpEntity<>(request, headers);
+
+            // Upload, upstream processing and response parsing: the body is serialized while it is sent
+            ResponseEntity<ApiResponse<FirmaResponse>> response;
+            try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.CREATION);
+                 RequestTimeline.Span span = RequestTimeline.phase("http")) {
+                response = restTemplate.exchange(
+                        url,
+                        HttpMethod.POST,
+                        entity,
+                        new ParameterizedTypeReference<ApiResponse<FirmaResponse>>() {}
+                );
+            }
 
             log.info("Firma request created successfully with ID: {}",
                     response.getBody() != null && response.getBody().getData() != null
@@ -154,8 +180,9 @@ public class OpenApiFirmaClient {
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             log.error("HTTP error creating firma request. Status: {}, Response: {}",
                 e.getStatusCode(), e.getResponseBodyAsString());
-            log.error("Request JSON was: {}", requestJson);
-            return ApiResponse.error("Failed to create signature request: " + e.getMessage());
+            log.error("Request was: {}", request);
+            return ApiResponse.upstreamError("Failed to create signature request: " + e.getMessage(),
+                    e.getStatusCode().value());
         } catch (Exception e) {
             log.error("Failed to create firma request", e);
             return ApiResponse.error("Failed to create signature request: " + e.getMessage());
@@ -165,6 +192,7 @@ public class OpenApiFirmaClient {
     /**
      * GET /firma_elettronica - List all signature requests
      */
+    @Override
     public ApiResponse<List<FirmaResponse>> getAllFirmaRequests() {
         log.info("Fetching all firma requests");
 
@@ -173,7 +201,7 @@ public class OpenApiFirmaClient {
 
         String url = config.getActiveBaseUrl() + "/firma_elettronica";
 
-        try {
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
             ResponseEntity<ApiResponse<List<FirmaResponse>>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
@@ -191,6 +219,7 @@ public class OpenApiFirmaClient {
     /**
      * GET /firma_elettronica/{id} - Get signature request by ID
      */
+    @Override
     public ApiResponse<FirmaResponse> getFirmaRequestById(String id) {
         log.info("Fetching firma request with ID: {}", id);
 
@@ -199,7 +228,7 @@ public class OpenApiFirmaClient {
 
         String url = config.getActiveBaseUrl() + "/firma_elettronica/" + id;
 
-        try {
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
             ResponseEntity<ApiResponse<FirmaResponse>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
@@ -217,6 +246,7 @@ public class OpenApiFirmaClient {
     /**
      * GET /firma_elettronica/{id}/download - Download signed document
      */
+    @Override
     public DownloadResponse downloadSignedDocument(String id) {
         log.info("Downloading signed document for ID: {}", id);
 
@@ -225,7 +255,7 @@ public class OpenApiFirmaClient {
 
         String url = config.getActiveBaseUrl() + "/firma_elettronica/" + id + "/download";
 
-        try {
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
             ResponseEntity<DownloadResponse> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
@@ -243,9 +273,112 @@ public class OpenApiFirmaClient {
         }
     }
 
+    /**
+     * GET /firma_elettronica/{id}/download - Stream the signed document into a sink.
+     * The Base64 content is decoded while it is read from the connection, nothing is buffered.
+     *
+     * @return false if the response carries no document
+     */
+    @Override
+    public boolean streamSignedDocument(String id, SignedDocumentSink sink) throws IOException {
+        log.info("Streaming signed document for ID: {}", id);
+
+        String url = config.getActiveBaseUrl() + "/firma_elettronica/" + id + "/download";
+        HttpHeaders headers = createAuthHeaders();
+
+        // The slot is held while the document is decoded from the connection
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
+            Boolean found = restTemplate.execute(
+                    url,
+                    HttpMethod.GET,
+                    request -> request.getHeaders().putAll(headers),
+                    response -> readSignedDocument(id, response.getBody(), objectMapper, sink));
+            return Boolean.TRUE.equals(found);
+        }
+    }
+
+    /**
+     * Copy the upstream response into the target with a fixed-size buffer
+     */
+    @Override
+    public boolean relay(RelayTarget target, String uriTemplate, Object... uriVariables) throws IOException {
+        HttpHeaders headers = createAuthHeaders();
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
+            relayTemplate.execute(
+                    config.getActiveBaseUrl() + uriTemplate,
+                    HttpMethod.GET,
+                    request -> request.getHeaders().putAll(headers),
+                    response -> {
+                        HttpHeaders relayed = new HttpHeaders();
+                        response.getHeaders().forEach((name, values) -> {
+                            if (RELAYED_HEADERS.stream().anyMatch(name::equalsIgnoreCase)) {
+                                relayed.put(name, values);
+                            }
+                        });
+                        OutputStream out = target.open(response.getStatusCode().value(), relayed);
+                        InputStream in = response.getBody();
+                        byte[] buffer = new byte[relayBufferSize];
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                        out.flush();
+                        return null;
+                    },
+                    uriVariables);
+        }
+        return true;
+    }
+
+    /**
+     * Fields upstream requires even when empty, and the fixed signature box position
+     */
+    static void prepareRequest(FirmaRequest request) {
+        request.getMembers().get(0).getSigns().get(0).setPosition("10,15,45,35");
+        if (request.getTitle() == null) request.setTitle("");
+        if (request.getDescription() == null) request.setDescription("");
+        if (request.getUi() == null) request.setUi("");
+    }
+
+    /**
+     * Decode the Base64 "content" field of a download response into the sink while it is read
+     */
+    static boolean readSignedDocument(String id, InputStream body, ObjectMapper objectMapper,
+                                      SignedDocumentSink sink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected download response for " + id);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(field) && value == JsonToken.VALUE_STRING) {
+                    return copyContent(id, parser, sink);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        }
+    }
+
+    private static boolean copyContent(String id, JsonParser parser, SignedDocumentSink sink) throws IOException {
+        OutputStream out = sink.open(id);
+        boolean complete = false;
+        try {
+            parser.readBinaryValue(out);
+            complete = true;
+        } finally {
+            sink.close(id, complete);
+        }
+        return true;
+    }
+
     /**
      * GET /firma_elettronica/{id}/audit - Get audit trail
      */
+    @Override
     public ApiResponse<Object> getAuditTrail(String id) {
         log.info("Fetching audit trail for ID: {}", id);
 
@@ -254,7 +387,7 @@ public class OpenApiFirmaClient {
 
         String url = config.getActiveBaseUrl() + "/firma_elettronica/" + id + "/audit";
 
-        try {
+        try (UpstreamScheduler.Permit permit = scheduler.acquire(UpstreamLane.INTERACTIVE)) {
             ResponseEntity<ApiResponse<Object>> response = restTemplate.exchange(
                     url,
                     HttpMethod.GET,
@@ -0,0 +1,64 @@
+package com.openapi.firma.client;
+
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking contract of the firmadigitale API. Calls only subscribe to the
+ * connection, so fan-out operations can keep thousands of requests in flight
+ * on the event loop threads.
+ */
+public interface ReactiveFirmaClient {
+
+    Mono<ApiResponse<FirmaResponse>> createFirmaRequest(FirmaRequest request);
+
+    Mono<ApiResponse<List<FirmaResponse>>> getAllFirmaRequests();
+
+    Mono<ApiResponse<FirmaResponse>> getFirmaRequestById(String id);
+
+    Mono<DownloadResponse> downloadSignedDocument(String id);
+
+    /**
+     * Stream the signed document into a sink, emitting false if the response carries no document
+     */
+    Mono<Boolean> streamSignedDocument(String id, SignedDocumentSink sink);
+
+    Mono<ApiResponse<Object>> getAuditTrail(String id);
+
+    /**
+     * Create many signature requests, at most {@code concurrency} in flight.
+     * Results are emitted in the order of the requests.
+     */
+    default Flux<ApiResponse<FirmaResponse>> createFirmaRequests(Flux<FirmaRequest> requests, int concurrency) {
+        return requests.flatMapSequential(this::createFirmaRequest, concurrency);
+    }
+
+    /**
+     * List all signature requests, then fetch the current state of each one.
+     * Runs in the {@link UpstreamLane#BULK} lane; the lane is picked when a call is
+     * assembled, which for the fan-out happens on the event loop threads.
+     */
+    default Flux<FirmaResponse> refreshAll(int concurrency) {
+        try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+            return getAllFirmaRequests()
+                    .filter(response -> response.isSuccess() && response.getData() != null)
+                    .flatMapMany(response -> Flux.fromIterable(response.getData()))
+                    .flatMap(this::refresh, concurrency);
+        }
+    }
+
+    private Mono<FirmaResponse> refresh(FirmaResponse firma) {
+        try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+            return getFirmaRequestById(firma.getId())
+                    .filter(response -> response.isSuccess() && response.getData() != null)
+                    .map(ApiResponse::getData)
+                    .defaultIfEmpty(firma);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.openapi.firma.client;
+
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link FirmaClient} for the synchronous services on top of the reactive transport.
+ * Only the calling request thread waits; fan-out work should use
+ * {@link ReactiveFirmaClient} directly.
+ */
+@Component
+@Profile("!mock")
+@ConditionalOnProperty(name = "firma.client.transport", havingValue = "reactive")
+@RequiredArgsConstructor
+public class ReactiveFirmaClientAdapter implements FirmaClient {
+
+    private final ReactiveFirmaClient reactiveClient;
+
+    @Override
+    public ApiResponse<FirmaResponse> createFirmaRequest(FirmaRequest request) {
+        return reactiveClient.createFirmaRequest(request).block();
+    }
+
+    @Override
+    public ApiResponse<List<FirmaResponse>> getAllFirmaRequests() {
+        return reactiveClient.getAllFirmaRequests().block();
+    }
+
+    @Override
+    public ApiResponse<FirmaResponse> getFirmaRequestById(String id) {
+        return reactiveClient.getFirmaRequestById(id).block();
+    }
+
+    @Override
+    public DownloadResponse downloadSignedDocument(String id) {
+        return reactiveClient.downloadSignedDocument(id).block();
+    }
+
+    @Override
+    public boolean streamSignedDocument(String id, SignedDocumentSink sink) throws IOException {
+        try {
+            return Boolean.TRUE.equals(reactiveClient.streamSignedDocument(id, sink).block());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // block() wraps checked exceptions of the reactive pipeline
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ApiResponse<Object> getAuditTrail(String id) {
+        return reactiveClient.getAuditTrail(id).block();
+    }
+}
@@ -0,0 +1,15 @@
+package com.openapi.firma.client;
+
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of an upstream response relayed byte for byte.
+ * {@link #open} is called once, with the upstream status and the headers worth forwarding.
+ */
+public interface RelayTarget {
+
+    OutputStream open(int status, HttpHeaders headers) throws IOException;
+}
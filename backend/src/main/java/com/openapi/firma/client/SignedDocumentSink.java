@@ -0,0 +1,16 @@
+package com.openapi.firma.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of a signed document streamed from upstream.
+ * {@link #open} is called when the first document byte is available,
+ * {@link #close} always follows it, also when the transfer fails.
+ */
+public interface SignedDocumentSink {
+
+    OutputStream open(String id) throws IOException;
+
+    void close(String id, boolean complete) throws IOException;
+}
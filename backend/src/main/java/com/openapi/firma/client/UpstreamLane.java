@@ -0,0 +1,13 @@
+package com.openapi.firma.client;
+
+/**
+ * Priority class of an upstream call, see {@link UpstreamScheduler}
+ */
+public enum UpstreamLane {
+    /** Reads a user is waiting for: a request, its audit trail, the list page */
+    INTERACTIVE,
+    /** Signature request creation, direct or from the outbox */
+    CREATION,
+    /** Background and batch work: exports, warm-up, status polling */
+    BULK
+}
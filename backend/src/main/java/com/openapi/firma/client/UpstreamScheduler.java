@@ -0,0 +1,395 @@
+package com.openapi.firma.client;
+
+import com.openapi.firma.config.OpenApiConfig;
+import com.openapi.firma.config.UpstreamProperties;
+import com.openapi.firma.exception.UpstreamBusyException;
+import com.openapi.firma.timing.RequestTimeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission of upstream calls by lane ({@link UpstreamLane}).
+ * <p>
+ * All lanes share one concurrency limit and the token bucket derived from
+ * {@code openapi.firma.rate-limit}. When both have room, the waiting call with
+ * the smallest virtual finish tag starts next: each call of a lane advances the
+ * lane tag by {@code 1 / weight}, so backlogged lanes get slots in proportion
+ * to their weights, and an idle lane starts at the current virtual time
+ * instead of cashing in credit. Each lane also has its own concurrency cap and
+ * a maximum queue wait.
+ * <p>
+ * The lane of a call is chosen by the client per operation and can be
+ * overridden for the current thread with {@link #inLane}.
+ */
+@Slf4j
+@Component
+public class UpstreamScheduler {
+
+    private static final ThreadLocal<UpstreamLane> CURRENT_LANE = new ThreadLocal<>();
+
+    private final UpstreamProperties properties;
+    private final LaneState[] lanes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledThreadPoolExecutor timer;
+
+    // Token bucket, tokensPerNano == 0 means no rate limit
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private boolean refillScheduled;
+
+    private int active;
+    private double virtualTime;
+
+    public UpstreamScheduler(UpstreamProperties properties, OpenApiConfig config, MeterRegistry registry) {
+        this.properties = properties;
+
+        OpenApiConfig.RateLimit rateLimit = config.getRateLimit();
+        this.tokensPerNano = rateLimit != null && rateLimit.getMaxRequests() > 0 && rateLimit.getTimeWindow() > 0
+                ? rateLimit.getMaxRequests() / (rateLimit.getTimeWindow() * 1_000_000.0) : 0;
+        this.burst = Math.max(1, properties.getBurst());
+        this.tokens = burst;
+
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "upstream-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+
+        this.lanes = new LaneState[UpstreamLane.values().length];
+        for (UpstreamLane lane : UpstreamLane.values()) {
+            lanes[lane.ordinal()] = new LaneState(lane, properties.lane(lane), registry);
+        }
+        Gauge.builder("firma.upstream.active", this, scheduler -> scheduler.active)
+                .description("Upstream calls in flight, all lanes")
+                .register(registry);
+        if (tokensPerNano > 0) {
+            Gauge.builder("firma.upstream.rate.tokens", this, UpstreamScheduler::availableTokens)
+                    .description("Upstream calls that may start now under the rate limit")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Run the calls of the current thread in {@code lane} until the scope is closed
+     */
+    public static LaneScope inLane(UpstreamLane lane) {
+        UpstreamLane previous = CURRENT_LANE.get();
+        CURRENT_LANE.set(lane);
+        return () -> {
+            if (previous != null) {
+                CURRENT_LANE.set(previous);
+            } else {
+                CURRENT_LANE.remove();
+            }
+        };
+    }
+
+    /**
+     * The lane set with {@link #inLane} on this thread, else the operation default
+     */
+    public static UpstreamLane currentLane(UpstreamLane operationDefault) {
+        UpstreamLane lane = CURRENT_LANE.get();
+        return lane != null ? lane : operationDefault;
+    }
+
+    /**
+     * Wait for a slot in the lane of the current thread, or {@code operationDefault}.
+     * Close the permit once the response has been read.
+     *
+     * @throws UpstreamBusyException if the lane deadline passes first
+     */
+    public Permit acquire(UpstreamLane operationDefault) {
+        UpstreamLane lane = currentLane(operationDefault);
+        CompletableFuture<Permit> future = submit(lane);
+        try (RequestTimeline.Span span = RequestTimeline.phase("queue")) {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!future.cancel(false)) {
+                future.thenAccept(Permit::close);
+            }
+            throw new UpstreamBusyException("Interrupted while waiting for the " + lane + " upstream lane");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new UpstreamBusyException(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Queue for a slot without blocking; the future fails with {@link UpstreamBusyException}
+     * after the lane deadline. Cancelling the future leaves the queue.
+     */
+    public CompletableFuture<Permit> submit(UpstreamLane lane) {
+        LaneState state = lanes[lane.ordinal()];
+        if (!properties.isEnabled()) {
+            return CompletableFuture.completedFuture(new Permit(state, false));
+        }
+
+        Waiter waiter = new Waiter(state, System.nanoTime());
+        List<Grant> grants;
+        lock.lock();
+        try {
+            waiter.tag = Math.max(virtualTime, state.lastTag) + 1.0 / Math.max(1, state.config.getWeight());
+            state.lastTag = waiter.tag;
+            state.queue.add(waiter);
+            grants = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        complete(grants);
+
+        if (!waiter.future.isDone()) {
+            waiter.expiry = timer.schedule(() -> expire(waiter),
+                    state.config.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return waiter.future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Start waiting calls while the concurrency and rate budgets allow, smallest tag first.
+     * Futures are completed by the caller after unlocking, so no continuation runs under the lock.
+     */
+    private List<Grant> dispatch() {
+        List<Grant> grants = null;
+        while (active < properties.getMaxConcurrent()) {
+            Waiter next = null;
+            for (LaneState state : lanes) {
+                Waiter head = state.queue.peek();
+                while (head != null && head.future.isDone()) {
+                    // Cancelled or expired, its expiry task may not have run yet
+                    state.queue.poll();
+                    head = state.queue.peek();
+                }
+                if (head != null && state.active < state.config.getMaxConcurrent()
+                        && (next == null || head.tag < next.tag)) {
+                    next = head;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            if (!takeToken()) {
+                scheduleRefill();
+                break;
+            }
+            next.state.queue.poll();
+            next.state.active++;
+            active++;
+            virtualTime = next.tag;
+            if (grants == null) {
+                grants = new ArrayList<>();
+            }
+            grants.add(new Grant(next, new Permit(next.state, true)));
+        }
+        return grants;
+    }
+
+    private void complete(List<Grant> grants) {
+        if (grants == null) {
+            return;
+        }
+        for (Grant grant : grants) {
+            Waiter waiter = grant.waiter();
+            if (waiter.expiry != null) {
+                waiter.expiry.cancel(false);
+            }
+            waiter.state.waitTimer.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (!waiter.future.complete(grant.permit())) {
+                // Cancelled between dispatch and completion
+                grant.permit().close();
+            }
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        lock.lock();
+        try {
+            waiter.state.queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+        if (waiter.future.completeExceptionally(new UpstreamBusyException(String.format(
+                "No upstream slot in the %s lane within %s", waiter.state.lane, waiter.state.config.getMaxWait())))) {
+            waiter.state.rejected.increment();
+            log.warn("Upstream call in lane {} rejected after {}: {} in flight, {} queued in lane",
+                    waiter.state.lane, waiter.state.config.getMaxWait(), active, waiter.state.queue.size());
+        }
+    }
+
+    private void release(LaneState state) {
+        List<Grant> grants;
+        lock.lock();
+        try {
+            state.active--;
+            active--;
+            grants = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        complete(grants);
+    }
+
+    private boolean takeToken() {
+        if (tokensPerNano == 0) {
+            return true;
+        }
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private void scheduleRefill() {
+        if (refillScheduled) {
+            return;
+        }
+        refillScheduled = true;
+        long delay = (long) Math.ceil((1 - tokens) / tokensPerNano);
+        timer.schedule(() -> {
+            List<Grant> grants;
+            lock.lock();
+            try {
+                refillScheduled = false;
+                grants = dispatch();
+            } finally {
+                lock.unlock();
+            }
+            complete(grants);
+        }, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private double availableTokens() {
+        lock.lock();
+        try {
+            refill();
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slot of one upstream call; released exactly once
+     */
+    public final class Permit implements AutoCloseable {
+        private final LaneState state;
+        private final boolean tracked;
+        private final long startedAt = System.nanoTime();
+        private boolean released;
+
+        private Permit(LaneState state, boolean tracked) {
+            this.state = state;
+            this.tracked = tracked;
+        }
+
+        public UpstreamLane lane() {
+            return state.lane;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            state.callTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            if (tracked) {
+                release(state);
+            }
+        }
+    }
+
+    /**
+     * Thread lane override; closing it restores the previous lane
+     */
+    public interface LaneScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class LaneState {
+        private final UpstreamLane lane;
+        private final UpstreamProperties.Lane config;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private int active;
+        private double lastTag;
+
+        private final Timer waitTimer;
+        private final Timer callTimer;
+        private final Counter rejected;
+
+        LaneState(UpstreamLane lane, UpstreamProperties.Lane config, MeterRegistry registry) {
+            this.lane = lane;
+            this.config = config;
+            String tag = lane.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("firma.upstream.lane.queued", this, state -> state.queue.size())
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("firma.upstream.lane.active", this, state -> state.active)
+                    .tag("lane", tag)
+                    .register(registry);
+            this.waitTimer = Timer.builder("firma.upstream.lane.wait")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            this.callTimer = Timer.builder("firma.upstream.lane.calls")
+                    .description("Upstream calls from slot grant to release, response read included")
+                    .tag("lane", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            this.rejected = Counter.builder("firma.upstream.lane.rejected").tag("lane", tag).register(registry);
+        }
+    }
+
+    private static final class Waiter {
+        private final LaneState state;
+        private final long enqueuedAt;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private double tag;
+        private volatile ScheduledFuture<?> expiry;
+
+        Waiter(LaneState state, long enqueuedAt) {
+            this.state = state;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private record Grant(Waiter waiter, Permit permit) {
+    }
+}
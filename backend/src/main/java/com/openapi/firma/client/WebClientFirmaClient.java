@@ -0,0 +1,269 @@
+package com.openapi.firma.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.compression.UpstreamCompression;
+import com.openapi.firma.config.FirmaClientProperties;
+import com.openapi.firma.config.OpenApiConfig;
+import com.openapi.firma.config.PayloadProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.payload.SpillingOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * {@link ReactiveFirmaClient} on WebClient and Reactor Netty.
+ * Request bodies are serialized while the connection consumes them, with the
+ * document read from its payload in chunks; JSON responses are decoded
+ * without blocking. Enabled with {@code firma.client.transport=reactive}.
+ */
+@Slf4j
+@Component
+@Profile("!mock")
+@ConditionalOnProperty(name = "firma.client.transport", havingValue = "reactive")
+public class WebClientFirmaClient implements ReactiveFirmaClient {
+
+    // Response buffers held ahead of the decoder of a signed document
+    private static final int DOWNLOAD_PREFETCH = 8;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final PayloadProperties payloadProperties;
+    private final UpstreamScheduler scheduler;
+
+    public WebClientFirmaClient(WebClient.Builder builder, OpenApiConfig config, FirmaClientProperties properties,
+                                ObjectMapper objectMapper, PayloadProperties payloadProperties,
+                                UpstreamScheduler scheduler, UpstreamCompression compression) {
+        this.objectMapper = objectMapper;
+        this.payloadProperties = payloadProperties;
+        this.scheduler = scheduler;
+
+        FirmaClientProperties.Reactive reactive = properties.getReactive();
+        ConnectionProvider connections = ConnectionProvider.builder("firmadigitale")
+                .maxConnections(reactive.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(reactive.getPendingAcquireTimeout())
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .responseTimeout(reactive.getResponseTimeout());
+
+        if (compression.isEnabled()) {
+            builder = builder.filter(compression.filter());
+        }
+        this.webClient = builder
+                .baseUrl(config.getActiveBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + config.getApiKey())
+                .codecs(codecs -> codecs.defaultCodecs()
+                        .maxInMemorySize((int) reactive.getMaxInMemorySize().toBytes()))
+                .build();
+
+        log.info("Reactive OpenAPI client initialized for environment: {} (max {} connections)",
+                config.getEnvironment(), reactive.getMaxConnections());
+    }
+
+    @Override
+    public Mono<ApiResponse<FirmaResponse>> createFirmaRequest(FirmaRequest request) {
+        log.info("Creating firma request for document: {}", request.getFilename());
+        OpenApiFirmaClient.prepareRequest(request);
+
+        // Serialized on demand: the Base64 document is produced as the connection accepts it
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(
+                out -> writeJson(out, request),
+                DefaultDataBufferFactory.sharedInstance,
+                task -> Schedulers.boundedElastic().schedule(task)));
+
+        return scheduled(UpstreamLane.CREATION, webClient.post()
+                        .uri("/firma_elettronica/base")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body, DataBuffer.class)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<ApiResponse<FirmaResponse>>() {}))
+                .doOnNext(response -> log.info("Firma request created successfully with ID: {}",
+                        response.getData() != null ? response.getData().getId() : "unknown"))
+                .onErrorResume(e -> {
+                    logError("Failed to create firma request", e);
+                    String error = "Failed to create signature request: " + e.getMessage();
+                    return Mono.just(e instanceof WebClientResponseException http
+                            ? ApiResponse.upstreamError(error, http.getStatusCode().value())
+                            : ApiResponse.error(error));
+                });
+    }
+
+    @Override
+    public Mono<ApiResponse<List<FirmaResponse>>> getAllFirmaRequests() {
+        return scheduled(UpstreamLane.INTERACTIVE, webClient.get()
+                        .uri("/firma_elettronica")
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<ApiResponse<List<FirmaResponse>>>() {}))
+                .onErrorResume(e -> {
+                    logError("Failed to fetch firma requests", e);
+                    return Mono.just(ApiResponse.error("Failed to fetch signature requests: " + e.getMessage()));
+                });
+    }
+
+    @Override
+    public Mono<ApiResponse<FirmaResponse>> getFirmaRequestById(String id) {
+        return scheduled(UpstreamLane.INTERACTIVE, webClient.get()
+                        .uri("/firma_elettronica/{id}", id)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<ApiResponse<FirmaResponse>>() {}))
+                .onErrorResume(e -> {
+                    logError("Failed to fetch firma request with ID: " + id, e);
+                    return Mono.just(ApiResponse.error("Failed to fetch signature request: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * The document is decoded into a payload that spills to disk like uploads do
+     */
+    @Override
+    public Mono<DownloadResponse> downloadSignedDocument(String id) {
+        // Resolved on the calling thread, the deferred part may run elsewhere
+        UpstreamLane lane = UpstreamScheduler.currentLane(UpstreamLane.INTERACTIVE);
+        return Mono.defer(() -> {
+            SpillingOutputStream content = new SpillingOutputStream(
+                    payloadProperties.getMemoryThreshold().toBytes(), Path.of(payloadProperties.getTempDir()));
+            SignedDocumentSink sink = new SignedDocumentSink() {
+                @Override
+                public OutputStream open(String documentId) {
+                    return content;
+                }
+
+                @Override
+                public void close(String documentId, boolean complete) throws IOException {
+                    content.close();
+                }
+            };
+
+            return streamSignedDocument(id, sink, lane)
+                    .map(found -> {
+                        if (!found) {
+                            discardQuietly(content);
+                            return DownloadResponse.builder()
+                                    .success(false)
+                                    .error("No signed document available for ID: " + id)
+                                    .build();
+                        }
+                        try {
+                            return DownloadResponse.builder()
+                                    .content(content.toPayload())
+                                    .success(true)
+                                    .message("Document downloaded successfully")
+                                    .build();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        discardQuietly(content);
+                        logError("Failed to download signed document for ID: " + id, e);
+                        return Mono.just(DownloadResponse.builder()
+                                .success(false)
+                                .error("Failed to download signed document: " + e.getMessage())
+                                .build());
+                    });
+        });
+    }
+
+    /**
+     * The response arrives without blocking; the Base64 decoding into the sink
+     * runs on one bounded worker, reading the buffers as they are received.
+     */
+    @Override
+    public Mono<Boolean> streamSignedDocument(String id, SignedDocumentSink sink) {
+        return streamSignedDocument(id, sink, UpstreamScheduler.currentLane(UpstreamLane.INTERACTIVE));
+    }
+
+    private Mono<Boolean> streamSignedDocument(String id, SignedDocumentSink sink, UpstreamLane lane) {
+        Flux<DataBuffer> body = webClient.get()
+                .uri("/firma_elettronica/{id}/download", id)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+
+        return scheduledIn(lane, Mono.fromCallable(() -> {
+                    try (InputStream in = new DataBufferInputStream(body, DOWNLOAD_PREFETCH)) {
+                        return OpenApiFirmaClient.readSignedDocument(id, in, objectMapper, sink);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    @Override
+    public Mono<ApiResponse<Object>> getAuditTrail(String id) {
+        return scheduled(UpstreamLane.INTERACTIVE, webClient.get()
+                        .uri("/firma_elettronica/{id}/audit", id)
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<ApiResponse<Object>>() {}))
+                .onErrorResume(e -> {
+                    logError("Failed to fetch audit trail for ID: " + id, e);
+                    return Mono.just(ApiResponse.error("Failed to fetch audit trail: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * Subscribe to the call once the scheduler grants a slot, release it when the call
+     * completes, fails or is cancelled. The lane is resolved on the assembling thread.
+     */
+    private <T> Mono<T> scheduled(UpstreamLane operationDefault, Mono<T> call) {
+        return scheduledIn(UpstreamScheduler.currentLane(operationDefault), call);
+    }
+
+    private <T> Mono<T> scheduledIn(UpstreamLane lane, Mono<T> call) {
+        return Mono.usingWhen(
+                Mono.fromFuture(() -> scheduler.submit(lane)),
+                permit -> call,
+                permit -> Mono.fromRunnable(permit::close));
+    }
+
+    private void writeJson(OutputStream out, FirmaRequest request) {
+        try {
+            objectMapper.writeValue(StreamUtils.nonClosing(out), request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void discardQuietly(SpillingOutputStream content) {
+        try {
+            content.discard();
+        } catch (IOException e) {
+            log.warn("Cannot delete partial download", e);
+        }
+    }
+
+    private static void logError(String message, Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            log.error("{}. Status: {}, Response: {}", message, response.getStatusCode(),
+                    response.getResponseBodyAsString());
+        } else {
+            log.error(message, e);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.openapi.firma.compression;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Holds back the first {@code minSize} bytes of the body so the decision to
+ * gzip can be taken on what the handler actually produced: its status, its
+ * content type, whether it is already encoded and whether it is big enough.
+ * Bodies that stay small are sent unchanged with an exact Content-Length.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum State { UNDECIDED, COMPRESSING, PASSTHROUGH }
+
+    private final DeflaterPool pool;
+    private final List<MediaType> mimeTypes;
+    private final int minSize;
+
+    private State state = State.UNDECIDED;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long declaredLength = -1;
+    private boolean preEncoded;
+    private PooledGzipOutputStream gzip;
+    private long rawBytes;
+    private long encodedBytes;
+    private long cpuNanos;
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, DeflaterPool pool, List<MediaType> mimeTypes, int minSize) {
+        super(response);
+        this.pool = pool;
+        this.mimeTypes = mimeTypes;
+        this.minSize = minSize;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called on this response");
+        }
+        if (outputStream == null) {
+            outputStream = new BodyStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called on this response");
+        }
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            outputStream = new BodyStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        switch (state) {
+            case UNDECIDED -> declaredLength = len;
+            case PASSTHROUGH -> super.setContentLengthLong(len);
+            case COMPRESSING -> {
+                // The length on the wire is only known once the body is compressed
+            }
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (intercepted(name, value)) {
+            return;
+        }
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (intercepted(name, value)) {
+            return;
+        }
+        super.addHeader(name, value);
+    }
+
+    private boolean intercepted(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            if (value != null) {
+                setContentLengthLong(Long.parseLong(value.trim()));
+            }
+            return true;
+        }
+        if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) && state == State.UNDECIDED) {
+            // Already encoded, e.g. relayed gzip from upstream: never encode twice
+            preEncoded = true;
+        }
+        return false;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        abort();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        abort();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        abort();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * The body written so far is replaced: drop it, and the gzip Content-Encoding with it
+     */
+    private void abort() {
+        boolean compressing = state == State.COMPRESSING;
+        discard();
+        if (compressing && !super.isCommitted()) {
+            super.reset();
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.UNDECIDED) {
+            // Committing now would fix the headers before the body size is known
+            return;
+        }
+        if (state == State.COMPRESSING) {
+            gzip.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return state != State.UNDECIDED && super.isCommitted();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        pending.reset();
+        if (state == State.COMPRESSING) {
+            // The header already went out with the discarded bytes; start a fresh gzip member
+            gzip.abandon();
+            gzip = null;
+            try {
+                startGzip();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        pending.reset();
+        if (gzip != null) {
+            gzip.abandon();
+            gzip = null;
+        }
+        state = State.UNDECIDED;
+        declaredLength = -1;
+        preEncoded = false;
+        outputStream = null;
+        writer = null;
+    }
+
+    /**
+     * Called once the handler is done: writes out what is still held back, or the gzip trailer
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.UNDECIDED) {
+            if (declaredLength < 0) {
+                declaredLength = pending.size();
+            }
+            pass();
+        }
+        if (state == State.COMPRESSING && gzip != null) {
+            gzip.finish();
+            rawBytes += gzip.rawBytes();
+            encodedBytes += gzip.encodedBytes();
+            cpuNanos += gzip.cpuNanos();
+            gzip = null;
+        }
+    }
+
+    /**
+     * The handler went async and keeps writing on another thread: stop holding bytes back.
+     * An async body is sent uncompressed unless compression had already started.
+     */
+    void release() throws IOException {
+        if (state == State.UNDECIDED) {
+            pass();
+        }
+    }
+
+    /**
+     * Give the deflater back after a failed exchange
+     */
+    void discard() {
+        pending.reset();
+        if (gzip != null) {
+            gzip.abandon();
+            gzip = null;
+        }
+        state = State.PASSTHROUGH;
+    }
+
+    boolean compressed() {
+        return encodedBytes > 0;
+    }
+
+    long rawBytes() {
+        return rawBytes;
+    }
+
+    long encodedBytes() {
+        return encodedBytes;
+    }
+
+    long cpuNanos() {
+        return cpuNanos;
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        switch (state) {
+            case UNDECIDED -> {
+                pending.write(b, off, len);
+                if (pending.size() >= minSize) {
+                    decide();
+                }
+            }
+            case COMPRESSING -> gzip.write(b, off, len);
+            case PASSTHROUGH -> underlying().write(b, off, len);
+        }
+    }
+
+    private void decide() throws IOException {
+        if (compressible()) {
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            state = State.COMPRESSING;
+            startGzip();
+            pending.writeTo(gzip);
+            pending.reset();
+        } else {
+            pass();
+        }
+    }
+
+    private void startGzip() throws IOException {
+        gzip = new PooledGzipOutputStream(underlying(), pool);
+    }
+
+    private ServletOutputStream underlying() throws IOException {
+        return getResponse().getOutputStream();
+    }
+
+    private void pass() throws IOException {
+        state = State.PASSTHROUGH;
+        if (declaredLength >= 0) {
+            super.setContentLengthLong(declaredLength);
+        }
+        if (pending.size() > 0) {
+            pending.writeTo(underlying());
+            pending.reset();
+        }
+    }
+
+    private boolean compressible() {
+        int status = getStatus();
+        if (preEncoded || status == HttpStatus.NO_CONTENT.value() || status == HttpStatus.NOT_MODIFIED.value()
+                || status == HttpStatus.PARTIAL_CONTENT.value() || containsHeader(HttpHeaders.CONTENT_RANGE)) {
+            return false;
+        }
+        MediaType contentType = contentType();
+        if (contentType == null) {
+            return false;
+        }
+        boolean listed = mimeTypes.stream().anyMatch(type -> type.includes(contentType));
+        if (listed) {
+            super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return listed;
+    }
+
+    private MediaType contentType() {
+        String value = getContentType();
+        if (value == null) {
+            return null;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(value);
+            return new MediaType(type.getType(), type.getSubtype());
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    private final class BodyStream extends ServletOutputStream {
+
+        private boolean nonBlocking;
+
+        @Override
+        public void write(int b) throws IOException {
+            CompressingResponseWrapper.this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponseWrapper.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            switch (state) {
+                case UNDECIDED -> {
+                    // Held back until the size is known or the handler finishes
+                }
+                case COMPRESSING -> gzip.flush();
+                case PASSTHROUGH -> underlying().flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            if (!nonBlocking) {
+                return true;
+            }
+            try {
+                return underlying().isReady();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * A non-blocking body cannot be held back: what is pending goes out uncompressed and the
+         * rest follows through, or through the gzip stream if compression had already started
+         */
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            try {
+                if (state == State.UNDECIDED) {
+                    pass();
+                }
+                nonBlocking = true;
+                underlying().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.openapi.firma.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-endpoint compression meters: how much smaller bodies get and what it
+ * costs in CPU, so the threshold and level can be tuned against real traffic.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompressionMetrics {
+
+    public static final String REQUEST = "request";
+    public static final String RESPONSE = "response";
+    public static final String UPSTREAM = "upstream";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/[^/]*\\d[^/]*");
+
+    private final MeterRegistry registry;
+
+    /**
+     * @param rawBytes     uncompressed size
+     * @param encodedBytes size on the wire
+     * @param cpuNanos     thread CPU time spent encoding or decoding
+     */
+    public void record(String direction, String endpoint, long rawBytes, long encodedBytes, long cpuNanos) {
+        if (rawBytes <= 0 || encodedBytes <= 0) {
+            return;
+        }
+        DistributionSummary.builder("firma.compression.ratio")
+                .description("Uncompressed size divided by size on the wire")
+                .tags("direction", direction, "endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95)
+                .register(registry)
+                .record((double) rawBytes / encodedBytes);
+        bytes(direction, endpoint, "raw").increment(rawBytes);
+        bytes(direction, endpoint, "encoded").increment(encodedBytes);
+        Timer.builder("firma.compression.cpu")
+                .description("Thread CPU time spent compressing or decompressing bodies")
+                .tags("direction", direction, "endpoint", endpoint)
+                .register(registry)
+                .record(cpuNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The matched controller pattern, so path variables do not multiply the series
+     */
+    public static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : "UNKNOWN";
+    }
+
+    /**
+     * Upstream path with identifier segments collapsed
+     */
+    public static String endpointOf(String method, URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        return method + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+    private Counter bytes(String direction, String endpoint, String form) {
+        return Counter.builder("firma.compression.bytes")
+                .baseUnit("bytes")
+                .tags("direction", direction, "endpoint", endpoint, "form", form)
+                .register(registry);
+    }
+}
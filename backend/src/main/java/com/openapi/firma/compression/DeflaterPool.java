@@ -0,0 +1,61 @@
+package com.openapi.firma.compression;
+
+import com.openapi.firma.config.CompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Reusable raw deflaters, so compressing a body does not allocate and free
+ * native zlib state every time. When the pool is empty a temporary deflater
+ * is created; deflaters returned to a full pool are ended.
+ */
+@Component
+public class DeflaterPool {
+
+    private final int level;
+    private final BlockingQueue<Deflater> idle;
+    private final Counter created;
+
+    public DeflaterPool(CompressionProperties properties, MeterRegistry registry) {
+        this.level = properties.getLevel();
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, properties.getPoolSize()));
+        this.created = Counter.builder("firma.compression.deflaters.created")
+                .description("Deflaters allocated because the pool was empty")
+                .register(registry);
+        Gauge.builder("firma.compression.deflaters.idle", idle, BlockingQueue::size).register(registry);
+    }
+
+    /**
+     * A deflater producing raw deflate data (no zlib wrapper), as gzip needs
+     */
+    public Deflater acquire() {
+        Deflater deflater = idle.poll();
+        if (deflater == null) {
+            created.increment();
+            deflater = new Deflater(level, true);
+        }
+        return deflater;
+    }
+
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Deflater deflater;
+        while ((deflater = idle.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.openapi.firma.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Gzip stream on a deflater borrowed from a {@link DeflaterPool}, which
+ * {@link java.util.zip.GZIPOutputStream} cannot use. The deflater goes back
+ * to the pool as soon as the trailer is written. Flushes are sync flushes,
+ * so what was written so far reaches the peer.
+ * <p>
+ * Counts the bytes in and out and the thread CPU time spent compressing.
+ */
+public class PooledGzipOutputStream extends DeflaterOutputStream {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DeflaterPool pool;
+    private final CRC32 crc = new CRC32();
+    private long rawBytes;
+    private long encodedBytes;
+    private long cpuNanos;
+    private boolean finished;
+
+    public PooledGzipOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+        super(out, pool.acquire(), BUFFER_SIZE, true);
+        this.pool = pool;
+        try {
+            out.write(HEADER);
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("Gzip stream already finished");
+        }
+        long start = cpuTime();
+        super.write(b, off, len);
+        crc.update(b, off, len);
+        rawBytes += len;
+        cpuNanos += cpuTime() - start;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (finished) {
+            out.flush();
+        } else {
+            super.flush();
+        }
+    }
+
+    /**
+     * Write the remaining data and the trailer, and give the deflater back; the target stays open
+     */
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            long start = cpuTime();
+            super.finish();
+            cpuNanos += cpuTime() - start;
+            encodedBytes = HEADER.length + def.getBytesWritten() + TRAILER_SIZE;
+            writeIntLe((int) crc.getValue());
+            writeIntLe((int) rawBytes);
+        } finally {
+            finished = true;
+            release();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Give the deflater back without writing anything more, for a body that is being discarded
+     */
+    public void abandon() {
+        finished = true;
+        release();
+    }
+
+    public long rawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Compressed size including gzip header and trailer, known once finished
+     */
+    public long encodedBytes() {
+        return encodedBytes;
+    }
+
+    public long cpuNanos() {
+        return cpuNanos;
+    }
+
+    private void release() {
+        if (def != null) {
+            pool.release(def);
+            def = null;
+        }
+    }
+
+    private void writeIntLe(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+
+    static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
@@ -0,0 +1,286 @@
+package com.openapi.firma.compression;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.admission.AdmissionControlFilter;
+import com.openapi.firma.config.CompressionProperties;
+import com.openapi.firma.dto.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts request bodies sent with Content-Encoding: gzip. The body is
+ * inflated while Jackson reads it, so the decompressed document is never
+ * held as a whole; downstream code sees a plain body of unknown length.
+ * <p>
+ * Runs after admission control, which weighs the compressed Content-Length:
+ * inflation stops at the body size admission reserved memory for, or at
+ * {@code max-inflated-size} if lower.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 50)
+@RequiredArgsConstructor
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CompressionProperties properties;
+    private final CompressionMetrics metrics;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.getRequest().isEnabled() || request.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim();
+        if (encoding.equalsIgnoreCase("identity")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!isGzip(encoding)) {
+            reject(response, encoding);
+            return;
+        }
+
+        InflatingRequest inflating = new InflatingRequest(request, inflationLimit(request));
+        try {
+            chain.doFilter(inflating, response);
+        } finally {
+            InflatingInputStream body = inflating.body;
+            if (body != null) {
+                metrics.record(CompressionMetrics.REQUEST, CompressionMetrics.endpointOf(request),
+                        body.inflated, body.encoded.count, body.cpuNanos);
+            }
+        }
+    }
+
+    private long inflationLimit(HttpServletRequest request) {
+        long limit = properties.getRequest().getMaxInflatedSize().toBytes();
+        if (request.getAttribute(AdmissionControlFilter.ADMITTED_BODY_SIZE) instanceof Long admitted) {
+            return Math.min(limit, admitted);
+        }
+        return limit;
+    }
+
+    /**
+     * True for the Content-Encoding values this filter inflates
+     */
+    public static boolean isGzip(String encoding) {
+        if (encoding == null) {
+            return false;
+        }
+        String coding = encoding.trim();
+        return coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip");
+    }
+
+    private void reject(HttpServletResponse response, String encoding) throws IOException {
+        log.debug("Rejected request body with Content-Encoding {}", encoding);
+        response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+        response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Unsupported Content-Encoding: " + encoding + ", use gzip"));
+    }
+
+    private static final class InflatingRequest extends HttpServletRequestWrapper {
+
+        private final long limit;
+        private InflatingInputStream body;
+        private BufferedReader reader;
+
+        InflatingRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new InflatingInputStream(super.getInputStream(), limit);
+            }
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return hidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !hidden(name))
+                    .toList());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return hidden(name) ? -1 : super.getIntHeader(name);
+        }
+
+        private static boolean hidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    private static final class InflatingInputStream extends ServletInputStream {
+
+        private final ServletInputStream source;
+        private final CountingInputStream encoded;
+        private final long limit;
+        private GZIPInputStream gzip;
+        private long inflated;
+        private long cpuNanos;
+        private boolean finished;
+
+        InflatingInputStream(ServletInputStream source, long limit) {
+            this.source = source;
+            this.encoded = new CountingInputStream(source);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            long start = PooledGzipOutputStream.cpuTime();
+            try {
+                if (gzip == null) {
+                    gzip = new GZIPInputStream(encoded, BUFFER_SIZE);
+                }
+                int n = gzip.read(b, off, len);
+                if (n < 0) {
+                    finished = true;
+                    gzip.close();
+                    return -1;
+                }
+                inflated += n;
+                if (inflated > limit) {
+                    throw new IOException("Decompressed request body exceeds " + limit + " bytes");
+                }
+                return n;
+            } finally {
+                cpuNanos += PooledGzipOutputStream.cpuTime() - start;
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return source.isReady();
+        }
+
+        /**
+         * Bodies are read with blocking I/O only; inflating along non-blocking reads would need
+         * the gzip header and trailer parsed incrementally
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads of gzip request bodies are not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (gzip != null) {
+                gzip.close();
+            } else {
+                source.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.openapi.firma.compression;
+
+import com.openapi.firma.config.CompressionProperties;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Gzips responses for clients that accept it. Signed documents travel as
+ * Base64 inside JSON, which deflate shrinks by roughly a quarter before the
+ * PDF content itself is even considered; small bodies are not worth the CPU
+ * and are sent as they are.
+ * <p>
+ * Runs right inside the timing filter so its cost shows up in the
+ * serialization checkpoint.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final CompressionProperties properties;
+    private final DeflaterPool pool;
+    private final CompressionMetrics metrics;
+    private final List<MediaType> mimeTypes;
+
+    public ResponseCompressionFilter(CompressionProperties properties, DeflaterPool pool, CompressionMetrics metrics) {
+        this.properties = properties;
+        this.pool = pool;
+        this.metrics = metrics;
+        this.mimeTypes = properties.getResponse().getMimeTypes().stream().map(MediaType::parseMediaType).toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.getResponse().isEnabled()
+                || HttpMethod.HEAD.matches(request.getMethod())
+                || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, pool, mimeTypes,
+                (int) properties.getResponse().getMinSize().toBytes());
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapper);
+            completed = true;
+        } finally {
+            if (!completed) {
+                wrapper.discard();
+            }
+        }
+
+        if (request.isAsyncStarted()) {
+            wrapper.release();
+            request.getAsyncContext().addListener(new FinishOnComplete(request, wrapper));
+            return;
+        }
+        wrapper.finish();
+        record(request, wrapper);
+    }
+
+    private void record(HttpServletRequest request, CompressingResponseWrapper wrapper) {
+        if (wrapper.compressed()) {
+            metrics.record(CompressionMetrics.RESPONSE, CompressionMetrics.endpointOf(request),
+                    wrapper.rawBytes(), wrapper.encodedBytes(), wrapper.cpuNanos());
+        }
+    }
+
+    /**
+     * True if gzip is acceptable: listed with a non-zero quality, or covered by a wildcard
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            boolean accepted = quality(parts) > 0;
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Writes the gzip trailer of a body that was still being compressed when the handler went async
+     */
+    private final class FinishOnComplete implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final CompressingResponseWrapper wrapper;
+
+        FinishOnComplete(HttpServletRequest request, CompressingResponseWrapper wrapper) {
+            this.request = request;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            try {
+                wrapper.finish();
+                record(request, wrapper);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not finish compressed async response: {}", e.getMessage());
+                wrapper.discard();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            wrapper.discard();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            wrapper.discard();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
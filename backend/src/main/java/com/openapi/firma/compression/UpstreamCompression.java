@@ -0,0 +1,241 @@
+package com.openapi.firma.compression;
+
+import com.openapi.firma.config.CompressionProperties;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Gzips request bodies sent to firmadigitale, for both clients: a request
+ * factory wrapper for RestTemplate and an exchange filter for WebClient.
+ * Bodies are compressed while they are serialized, never buffered whole.
+ * Only applied when {@code firma.compression.upstream.enabled} is set, as
+ * the upstream has to accept Content-Encoding: gzip.
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamCompression {
+
+    private static final Set<HttpMethod> BODY_METHODS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH);
+
+    private final CompressionProperties properties;
+    private final DeflaterPool pool;
+    private final CompressionMetrics metrics;
+
+    public boolean isEnabled() {
+        return properties.getUpstream().isEnabled();
+    }
+
+    /**
+     * Request factory compressing the bodies of requests created by {@code delegate}
+     */
+    public ClientHttpRequestFactory wrap(ClientHttpRequestFactory delegate) {
+        return (uri, method) -> {
+            ClientHttpRequest request = delegate.createRequest(uri, method);
+            return BODY_METHODS.contains(method) ? new GzipClientHttpRequest(request) : request;
+        };
+    }
+
+    /**
+     * WebClient filter compressing request bodies on the fly
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> {
+            if (!BODY_METHODS.contains(request.method())) {
+                return next.exchange(request);
+            }
+            BodyInserter<?, ? super org.springframework.http.client.reactive.ClientHttpRequest> body = request.body();
+            String endpoint = CompressionMetrics.endpointOf(request.method().name(), request.url());
+            ClientRequest compressed = ClientRequest.from(request)
+                    .body((message, context) -> body.insert(new GzipReactiveRequest(message, endpoint), context))
+                    .build();
+            return next.exchange(compressed);
+        };
+    }
+
+    private static void markEncoded(HttpHeaders headers) {
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    private void record(String endpoint, PooledGzipOutputStream gzip) {
+        metrics.record(CompressionMetrics.UPSTREAM, endpoint, gzip.rawBytes(), gzip.encodedBytes(), gzip.cpuNanos());
+    }
+
+    private final class GzipClientHttpRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+
+        private final ClientHttpRequest delegate;
+        private final String endpoint;
+        private PooledGzipOutputStream gzip;
+
+        GzipClientHttpRequest(ClientHttpRequest delegate) {
+            this.delegate = delegate;
+            this.endpoint = CompressionMetrics.endpointOf(delegate.getMethod().name(), delegate.getURI());
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (gzip == null) {
+                markEncoded(getHeaders());
+                gzip = new PooledGzipOutputStream(StreamUtils.nonClosing(delegate.getBody()), pool);
+            }
+            return gzip;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            if (!(delegate instanceof StreamingHttpOutputMessage streaming)) {
+                try {
+                    body.writeTo(getBody());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            markEncoded(getHeaders());
+            streaming.setBody(out -> {
+                PooledGzipOutputStream stream = new PooledGzipOutputStream(StreamUtils.nonClosing(out), pool);
+                try {
+                    body.writeTo(stream);
+                    stream.finish();
+                    record(endpoint, stream);
+                } finally {
+                    stream.abandon();
+                }
+            });
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            if (gzip != null) {
+                try {
+                    gzip.finish();
+                    record(endpoint, gzip);
+                } finally {
+                    gzip.abandon();
+                }
+            }
+            return delegate.execute();
+        }
+    }
+
+    private final class GzipReactiveRequest extends ClientHttpRequestDecorator {
+
+        private final String endpoint;
+
+        GzipReactiveRequest(org.springframework.http.client.reactive.ClientHttpRequest delegate, String endpoint) {
+            super(delegate);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            markEncoded(getHeaders());
+            DataBufferFactory factory = bufferFactory();
+            Flux<DataBuffer> compressed = Flux.defer(() -> {
+                ChunkedGzip gzip = new ChunkedGzip();
+                return Flux.from(body)
+                        .<DataBuffer>handle((buffer, sink) -> {
+                            byte[] chunk = gzip.deflate(buffer);
+                            if (chunk.length > 0) {
+                                sink.next(factory.wrap(chunk));
+                            }
+                        })
+                        .concatWith(Mono.fromCallable(() -> factory.wrap(gzip.finish())))
+                        .doFinally(signal -> gzip.release());
+            });
+            return super.writeWith(compressed);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        /**
+         * One gzip stream fed buffer by buffer, handing back whatever compressed output each produced
+         */
+        private final class ChunkedGzip {
+
+            private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            private PooledGzipOutputStream gzip;
+
+            byte[] deflate(DataBuffer buffer) {
+                try {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    stream().write(bytes, 0, bytes.length);
+                    return drain();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            }
+
+            byte[] finish() throws IOException {
+                PooledGzipOutputStream stream = stream();
+                stream.finish();
+                record(endpoint, stream);
+                return drain();
+            }
+
+            void release() {
+                if (gzip != null) {
+                    gzip.abandon();
+                }
+            }
+
+            private PooledGzipOutputStream stream() throws IOException {
+                if (gzip == null) {
+                    gzip = new PooledGzipOutputStream(output, pool);
+                }
+                return gzip;
+            }
+
+            private byte[] drain() {
+                byte[] bytes = output.toByteArray();
+                output.reset();
+                return bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Memory shared by all signature uploads in flight
+     */
+    private DataSize memoryBudget = DataSize.ofMegabytes(512);
+
+    /**
+     * Heap bytes reserved per request body byte (body buffers, decoded copy, parser state)
+     */
+    private double weightFactor = 1.5;
+
+    /**
+     * Same for gzip request bodies, which inflate several times over before being parsed
+     */
+    private double encodedWeightFactor = 6.0;
+
+    /**
+     * Reservation for chunked requests that carry no Content-Length
+     */
+    private DataSize unknownLengthWeight = DataSize.ofMegabytes(64);
+
+    /**
+     * How long a request may queue for budget before being rejected
+     */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    private Duration retryAfter = Duration.ofSeconds(10);
+}
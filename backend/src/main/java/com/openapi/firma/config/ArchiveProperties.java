@@ -0,0 +1,53 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.archive")
+public class ArchiveProperties {
+
+    /**
+     * Keep downloaded signed documents locally and serve them from disk afterwards
+     */
+    private boolean enabled = false;
+
+    private String dir = "./data/archive";
+
+    /**
+     * How long a document stays a file of its own before it is packed into a segment
+     */
+    private Duration hotRetention = Duration.ofDays(7);
+
+    /**
+     * Documents stored longer ago are deleted from both tiers
+     */
+    private Duration retention = Duration.ofDays(3650);
+
+    /**
+     * A new segment is started once the current one reaches this size
+     */
+    private DataSize segmentMaxSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Deflate level of packed documents, 0 stores them uncompressed
+     */
+    private int compressionLevel = 6;
+
+    /**
+     * Segments whose live records fill less than this fraction are rewritten
+     */
+    private double compactionMinLiveRatio = 0.5;
+
+    /**
+     * Slots of a new index; it doubles as documents are added
+     */
+    private int indexInitialCapacity = 1 << 16;
+
+    private Duration maintenanceInterval = Duration.ofHours(1);
+}
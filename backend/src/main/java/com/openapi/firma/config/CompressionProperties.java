@@ -0,0 +1,67 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.compression")
+public class CompressionProperties {
+
+    /**
+     * Deflate level for responses and upstream requests: 1 is fastest, 9 smallest
+     */
+    private int level = 6;
+
+    /**
+     * Deflaters kept for reuse; more concurrent streams allocate temporary ones
+     */
+    private int poolSize = 32;
+
+    private Request request = new Request();
+    private Response response = new Response();
+    private Upstream upstream = new Upstream();
+
+    @Data
+    public static class Request {
+        /**
+         * Accept request bodies with Content-Encoding: gzip
+         */
+        private boolean enabled = true;
+
+        /**
+         * Decompressed bodies above this size are rejected; uploads under admission
+         * control are also rejected past the size their reservation covers
+         */
+        private DataSize maxInflatedSize = DataSize.ofMegabytes(200);
+    }
+
+    @Data
+    public static class Response {
+        /**
+         * Gzip responses for clients sending Accept-Encoding: gzip
+         */
+        private boolean enabled = true;
+
+        /**
+         * Smaller bodies are sent as they are
+         */
+        private DataSize minSize = DataSize.ofKilobytes(2);
+
+        private List<String> mimeTypes = new ArrayList<>(List.of(
+                "application/json", "application/problem+json", "text/plain", "text/html", "text/csv"));
+    }
+
+    @Data
+    public static class Upstream {
+        /**
+         * Gzip request bodies sent to firmadigitale; enable only if the endpoint accepts them
+         */
+        private boolean enabled = false;
+    }
+}
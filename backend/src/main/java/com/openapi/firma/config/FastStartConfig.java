@@ -0,0 +1,63 @@
+package com.openapi.firma.config;
+
+import com.openapi.firma.admission.MemoryBudget;
+import com.openapi.firma.archive.SignedDocumentArchive;
+import com.openapi.firma.client.OpenApiFirmaClient;
+import com.openapi.firma.client.WebClientFirmaClient;
+import com.openapi.firma.service.FirmaSearchIndex;
+import com.openapi.firma.service.IdempotencyStore;
+import com.openapi.firma.service.OutboxDispatcher;
+import com.openapi.firma.service.StatusPollingCoordinator;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.env.Environment;
+
+/**
+ * Startup tuning: with {@code spring.main.lazy-initialization} most beans are
+ * created on first use, beans doing background work stay eager. An AOT build
+ * also guards the client transport it was processed with.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(FirmaRuntimeHints.class)
+public class FastStartConfig {
+
+    /**
+     * Scheduled sweeps and polling, the outbox loop, the search warm-up, the
+     * archive maintenance and the admission gauges must exist before the first request
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                OutboxDispatcher.class, IdempotencyStore.class, FirmaSearchIndex.class, MemoryBudget.class,
+                StatusPollingCoordinator.class, SignedDocumentArchive.class);
+    }
+
+    /**
+     * AOT evaluates {@code @ConditionalOnProperty(firma.client.transport)} at build time, so a
+     * different transport at runtime would be silently ignored: refuse to start instead
+     */
+    @Bean
+    static SmartInitializingSingleton aotTransportCheck(ListableBeanFactory beanFactory, Environment environment) {
+        return () -> {
+            if (!AotDetector.useGeneratedArtifacts()) {
+                return;
+            }
+            String built = beanFactory.getBeanNamesForType(WebClientFirmaClient.class, false, false).length > 0
+                    ? "reactive"
+                    : beanFactory.getBeanNamesForType(OpenApiFirmaClient.class, false, false).length > 0
+                    ? "blocking" : null;
+            String requested = environment.getProperty("firma.client.transport", "blocking");
+            // No real client at all with the mock profile
+            if (built != null && !built.equals(requested)) {
+                throw new IllegalStateException("firma.client.transport=" + requested
+                        + " but this AOT build was processed with " + built
+                        + ": rebuild with -Dfast-start.transport=" + requested);
+            }
+        };
+    }
+}
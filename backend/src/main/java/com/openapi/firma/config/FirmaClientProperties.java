@@ -0,0 +1,38 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.client")
+public class FirmaClientProperties {
+
+    /**
+     * blocking (RestTemplate) or reactive (WebClient); ignored with the mock profile
+     */
+    private String transport = "blocking";
+
+    private Reactive reactive = new Reactive();
+
+    @Data
+    public static class Reactive {
+
+        /**
+         * Upstream connections shared by all in-flight calls; further calls wait for a free one
+         */
+        private int maxConnections = 500;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(60);
+        private Duration responseTimeout = Duration.ofSeconds(60);
+
+        /**
+         * Largest JSON response decoded into objects; documents are streamed instead
+         */
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+    }
+}
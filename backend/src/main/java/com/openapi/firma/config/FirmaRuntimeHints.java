@@ -0,0 +1,36 @@
+package com.openapi.firma.config;
+
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.dto.OutboxStatusResponse;
+import com.openapi.firma.dto.TemplateFirmaRequest;
+import com.openapi.firma.dto.TemplateRequest;
+import com.openapi.firma.dto.TemplateResponse;
+import com.openapi.firma.validation.PdfInfo;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the types bound by Jackson, so the AOT-processed
+ * application does not depend on classpath scanning of the DTOs.
+ * Nested types (members, signs, statuses) are registered transitively.
+ */
+public class FirmaRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                FirmaRequest.class,
+                FirmaResponse.class,
+                ApiResponse.class,
+                DownloadResponse.class,
+                OutboxStatusResponse.class,
+                TemplateRequest.class,
+                TemplateResponse.class,
+                TemplateFirmaRequest.class,
+                PdfInfo.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How long a completed response is replayed for the same Idempotency-Key
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long a duplicate waits for the first execution still in flight
+     */
+    private Duration inFlightWait = Duration.ofSeconds(60);
+
+    /**
+     * Number of independently locked partitions of the key index (power of two)
+     */
+    private int stripes = 64;
+
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    private Persistence persistence = new Persistence();
+
+    @Data
+    public static class Persistence {
+        /**
+         * Also store completed responses in the database, so replays survive restarts
+         */
+        private boolean enabled = false;
+    }
+}
@@ -1,11 +1,15 @@
 package com.openapi.firma.config;
 
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.openapi.firma.payload.DocumentPayloadModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.nio.file.Path;
+
 @Configuration
 public class JacksonConfig {
 
@@ -22,4 +26,14 @@ public class JacksonConfig {
 
         return objectMapper;
     }
+
+    /**
+     * Stream document content in and out of JSON instead of materializing Base64 strings
+     */
+    @Bean
+    public Module documentPayloadModule(PayloadProperties payloadProperties) {
+        return new DocumentPayloadModule(
+                payloadProperties.getMemoryThreshold().toBytes(),
+                Path.of(payloadProperties.getTempDir()));
+    }
 }
@@ -0,0 +1,46 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.outbox")
+public class OutboxProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Directory holding the documents of entries not yet dispatched
+     */
+    private String spoolDir = "./data/outbox";
+
+    /**
+     * How long POST /firma waits for the dispatch before answering 202 Accepted
+     */
+    private Duration awaitTimeout = Duration.ofSeconds(10);
+
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Tenants picked per pass of the dispatcher
+     */
+    private int batchSize = 50;
+
+    /**
+     * Tenants dispatched concurrently; entries of one tenant are always sent in order
+     */
+    private int parallelism = 4;
+
+    private int maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(2);
+    private Duration maxBackoff = Duration.ofMinutes(5);
+
+    /**
+     * Claim duration of an entry being dispatched, after which another dispatcher may take it over
+     */
+    private Duration claimTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,19 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.payload")
+public class PayloadProperties {
+
+    /**
+     * Documents larger than this are kept in a temp file instead of the heap
+     */
+    private DataSize memoryThreshold = DataSize.ofMegabytes(4);
+
+    private String tempDir = System.getProperty("java.io.tmpdir") + "/firma-payloads";
+}
@@ -0,0 +1,50 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.polling")
+public class PollingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Identity of this replica in the lease table; generated from host and pid when empty
+     */
+    private String nodeId;
+
+    /**
+     * How often each in-flight signature request is polled, cluster wide
+     */
+    private Duration interval = Duration.ofMinutes(1);
+
+    /**
+     * Period of heartbeat, lease renewal, rebalancing and polling of due requests
+     */
+    private Duration tick = Duration.ofSeconds(5);
+
+    /**
+     * Lease validity; a crashed node's requests are taken over after this time
+     */
+    private Duration leaseDuration = Duration.ofSeconds(30);
+
+    /**
+     * A node without heartbeat for this long no longer counts for the fair share
+     */
+    private Duration nodeTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Due requests polled per tick at most
+     */
+    private int batchSize = 50;
+
+    /**
+     * Time a tick may spend polling; must leave room for one upstream call within the lease duration
+     */
+    private Duration batchTime = Duration.ofSeconds(20);
+}
@@ -0,0 +1,28 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.templates")
+public class TemplateProperties {
+
+    /**
+     * Directory holding the template PDFs and their metadata
+     */
+    private String dir = "./data/templates";
+
+    /**
+     * Templates kept in memory, least recently used evicted first
+     */
+    private int cacheMaxEntries = 100;
+
+    /**
+     * Heap taken by cached template documents; documents above firma.payload.memory-threshold
+     * are never cached and are streamed from disk
+     */
+    private DataSize cacheMaxSize = DataSize.ofMegabytes(128);
+}
@@ -0,0 +1,32 @@
+package com.openapi.firma.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.timing")
+public class TimingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Fraction of requests timed phase by phase
+     */
+    private double sampleRate = 0.01;
+
+    /**
+     * Request header that forces sampling of a single request
+     */
+    private String forceHeader = "X-Timing";
+
+    /**
+     * Sampled requests at least this slow are kept for GET /firma/diagnostics/timings
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    private int bufferSize = 200;
+}
@@ -0,0 +1,58 @@
+package com.openapi.firma.config;
+
+import com.openapi.firma.client.UpstreamLane;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "firma.upstream")
+public class UpstreamProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upstream calls in flight across all lanes, the connection budget the lanes share
+     */
+    private int maxConcurrent = 32;
+
+    /**
+     * Calls that may start back to back after the rate budget (openapi.firma.rate-limit) was idle
+     */
+    private int burst = 20;
+
+    private Lane interactive = new Lane(8, 32, Duration.ofSeconds(5));
+    private Lane creation = new Lane(4, 16, Duration.ofSeconds(30));
+    private Lane bulk = new Lane(1, 8, Duration.ofMinutes(5));
+
+    public Lane lane(UpstreamLane lane) {
+        return switch (lane) {
+            case INTERACTIVE -> interactive;
+            case CREATION -> creation;
+            case BULK -> bulk;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Lane {
+
+        /**
+         * Share of the calls started while several lanes are waiting
+         */
+        private int weight;
+
+        private int maxConcurrent;
+
+        /**
+         * Longest wait for a slot before the call fails
+         */
+        private Duration maxWait;
+    }
+}
@@ -1,16 +1,47 @@
 package com.openapi.firma.controller;
 
 import com.openapi.firma.dto.*;
+import com.openapi.firma.exception.PdfValidationException;
+import com.openapi.firma.exception.UpstreamBusyException;
+import com.openapi.firma.service.BulkExportService;
 import com.openapi.firma.service.FirmaService;
+import com.openapi.firma.service.IdempotencyStore;
+import com.openapi.firma.service.SigningAnalytics;
+import com.openapi.firma.service.TemplateStore;
+import com.openapi.firma.timing.RequestTimeline;
+import com.openapi.firma.timing.TimingRecorder;
+import com.openapi.firma.validation.PdfInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 @Slf4j
 @RestController
@@ -19,33 +50,169 @@ import java.util.List;
 @Validated
 public class FirmaController {
 
+    private static final Object EXPORT_TIMEOUT = FirmaController.class.getName() + ".exportTimeout";
+
     private final FirmaService firmaService;
+    private final IdempotencyStore idempotencyStore;
+    private final BulkExportService bulkExportService;
+    private final SigningAnalytics signingAnalytics;
+    private final TimingRecorder timingRecorder;
+    private final TemplateStore templateStore;
+    private final Validator validator;
 
     /**
      * POST /api/firma - Create a new signature request
      */
     @PostMapping
     public ResponseEntity<ApiResponse<FirmaResponse>> createSignatureRequest(
-            @Valid @RequestBody FirmaRequest request) {
+            @Valid @RequestBody FirmaRequest request,
+            @RequestHeader(value = "X-Tenant-Id", defaultValue = "default") String tenant,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
+        // Bean validation ran between the body read and this call
+        RequestTimeline.checkpoint("validate");
         log.info("Received signature request for document: {}", request.getFilename());
 
-        ApiResponse<FirmaResponse> response = firmaService.createSignatureRequest(request);
+        return createIdempotent(request, null, tenant, idempotencyKey);
+    }
 
-        if (response.isSuccess()) {
+    /**
+     * POST /api/firma/templates/{templateId}/requests - Create a signature request on a stored template,
+     * sending only the members (and optional overrides)
+     */
+    @PostMapping("/templates/{templateId}/requests")
+    public ResponseEntity<?> createSignatureRequestFromTemplate(
+            @PathVariable String templateId,
+            @Valid @RequestBody TemplateFirmaRequest templateRequest,
+            @RequestHeader(value = "X-Tenant-Id", defaultValue = "default") String tenant,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws IOException {
+
+        Optional<TemplateResponse> template = templateStore.find(templateId);
+        if (template.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Template not found: " + templateId));
+        }
+
+        FirmaRequest request;
+        try {
+            request = templateStore.instantiate(template.get(), templateRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+
+        // Members are checked once the layout filled in their signs, with the rules of POST /firma
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<FirmaRequest> violation : validator.validate(request)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            log.warn("Validation error: {}", errors);
+            return ResponseEntity.badRequest().body(ApiResponse.<Map<String, String>>builder()
+                    .success(false)
+                    .error("Validation failed")
+                    .data(errors)
+                    .build());
+        }
+        RequestTimeline.checkpoint("validate");
+        log.info("Received signature request on template {} for document: {}", templateId, request.getFilename());
+
+        return createIdempotent(request, template.get().getDocument(), tenant, idempotencyKey);
+    }
+
+    private ResponseEntity<ApiResponse<FirmaResponse>> createIdempotent(FirmaRequest request, PdfInfo documentInfo,
+                                                                     String tenant, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || !idempotencyStore.isEnabled()) {
+            return create(request, documentInfo, tenant);
+        }
+        try {
+            return idempotencyStore.execute(tenant + ":" + idempotencyKey,
+                    IdempotencyStore.fingerprint(request), () -> create(request, documentInfo, tenant));
+        } finally {
+            // A replayed duplicate never reaches the service, release its upload here
+            request.getContent().close();
+        }
+    }
+
+    private ResponseEntity<ApiResponse<FirmaResponse>> create(FirmaRequest request, PdfInfo documentInfo,
+                                                              String tenant) {
+        ApiResponse<FirmaResponse> response = firmaService.createSignatureRequest(request, documentInfo, tenant);
+
+        if (response.isSuccess() && response.getData() == null) {
+            // Still in the outbox, upstream has not answered yet
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } else if (response.isSuccess()) {
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } else {
             return ResponseEntity.badRequest().body(response);
         }
     }
 
+    /**
+     * POST /api/firma/templates - Store a PDF with its default signature layout for reuse
+     */
+    @PostMapping("/templates")
+    public ResponseEntity<ApiResponse<TemplateResponse>> createTemplate(
+            @Valid @RequestBody TemplateRequest request) throws IOException {
+
+        log.info("Storing template: {}", request.getName());
+        try {
+            TemplateResponse template = templateStore.create(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success(template, "Template stored"));
+        } catch (PdfValidationException e) {
+            log.warn("Template rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } finally {
+            request.getContent().close();
+        }
+    }
+
+    /**
+     * GET /api/firma/templates - List stored templates, newest first
+     */
+    @GetMapping("/templates")
+    public ResponseEntity<ApiResponse<List<TemplateResponse>>> getTemplates() throws IOException {
+        List<TemplateResponse> templates = templateStore.list();
+        return ResponseEntity.ok(ApiResponse.success(templates, templates.size() + " templates"));
+    }
+
+    /**
+     * GET /api/firma/templates/{templateId} - Template metadata and layout
+     */
+    @GetMapping("/templates/{templateId}")
+    public ResponseEntity<ApiResponse<TemplateResponse>> getTemplate(@PathVariable String templateId)
+            throws IOException {
+
+        return templateStore.find(templateId)
+                .map(template -> ResponseEntity.ok(ApiResponse.success(template, "Template " + template.getName())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Template not found: " + templateId)));
+    }
+
+    /**
+     * DELETE /api/firma/templates/{templateId} - Remove a template
+     */
+    @DeleteMapping("/templates/{templateId}")
+    public ResponseEntity<ApiResponse<String>> deleteTemplate(@PathVariable String templateId) throws IOException {
+        if (!templateStore.delete(templateId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Template not found: " + templateId));
+        }
+        return ResponseEntity.ok(ApiResponse.success(templateId, "Template deleted"));
+    }
+
     /**
      * GET /api/firma - Get all signature requests
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<FirmaResponse>>> getAllSignatureRequests() {
+    public ResponseEntity<ApiResponse<List<FirmaResponse>>> getAllSignatureRequests(
+            HttpServletResponse servletResponse) throws IOException {
         log.info("Fetching all signature requests");
 
+        if (relayed(servletResponse, "/firma_elettronica")) {
+            return null;
+        }
+
         ApiResponse<List<FirmaResponse>> response = firmaService.getAllSignatureRequests();
 
         if (response.isSuccess()) {
@@ -55,15 +222,69 @@ public class FirmaController {
         }
     }
 
+    /**
+     * GET /api/firma/search - Search signature requests by signer (email, phone or name),
+     * request status, signer status and creation date, newest first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<FirmaResponse>>> searchSignatureRequests(
+            @RequestParam(required = false) String signer,
+            @RequestParam(required = false) Set<FirmaResponse.FirmaStatus> status,
+            @RequestParam(required = false) String memberStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        return ResponseEntity.ok(firmaService.searchSignatureRequests(signer, status, memberStatus, from, to, limit));
+    }
+
+    /**
+     * GET /api/firma/analytics - Live signing statistics with hourly rollups for the last hours
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<ApiResponse<AnalyticsResponse>> getAnalytics(
+            @RequestParam(defaultValue = "24") int hours) {
+
+        return ResponseEntity.ok(ApiResponse.success(signingAnalytics.snapshot(hours), "Signing analytics"));
+    }
+
+    /**
+     * GET /api/firma/diagnostics/timings - Phase timelines of recent slow sampled requests
+     */
+    @GetMapping("/diagnostics/timings")
+    public ResponseEntity<ApiResponse<List<RequestTimingResponse>>> getRecentTimings(
+            @RequestParam(defaultValue = "50") int limit) {
+
+        List<RequestTimingResponse> timings = timingRecorder.recent(limit);
+        return ResponseEntity.ok(ApiResponse.success(timings, timings.size() + " slow requests"));
+    }
+
+    /**
+     * GET /api/firma/outbox/{entryId} - Dispatch status of a queued signature request
+     */
+    @GetMapping("/outbox/{entryId}")
+    public ResponseEntity<ApiResponse<OutboxStatusResponse>> getOutboxStatus(
+            @PathVariable Long entryId) {
+
+        return firmaService.getOutboxStatus(entryId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success(status, "Outbox entry " + status.getStatus())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Outbox entry not found: " + entryId)));
+    }
+
     /**
      * GET /api/firma/{id} - Get signature request by ID
      */
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<FirmaResponse>> getSignatureRequestById(
-            @PathVariable String id) {
+            @PathVariable String id, HttpServletResponse servletResponse) throws IOException {
 
         log.info("Fetching signature request: {}", id);
 
+        if (relayed(servletResponse, "/firma_elettronica/{id}", id)) {
+            return null;
+        }
+
         ApiResponse<FirmaResponse> response = firmaService.getSignatureRequestById(id);
 
         if (response.isSuccess()) {
@@ -91,15 +312,68 @@ public class FirmaController {
         }
     }
 
+    /**
+     * GET /api/firma/download - Download many signed documents as a ZIP archive,
+     * selected by explicit ids or by status (default finished) and creation date
+     */
+    @GetMapping("/download")
+    public ResponseEntity<?> downloadSignedArchive(
+            @RequestParam(required = false) List<String> ids,
+            @RequestParam(required = false) FirmaResponse.FirmaStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletRequest servletRequest) {
+
+        log.info("Exporting signed documents: ids={}, status={}, from={}, to={}", ids, status, from, to);
+
+        ApiResponse<List<BulkExportService.ExportItem>> selection = ids != null && !ids.isEmpty()
+                ? bulkExportService.select(ids)
+                : bulkExportService.select(status != null ? status : FirmaResponse.FirmaStatus.finished, from, to);
+
+        if (!selection.isSuccess()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(selection);
+        }
+
+        StreamingResponseBody archive = out -> bulkExportService.writeArchive(selection.getData(), out);
+        extendAsyncTimeout(servletRequest, bulkExportService.getTimeout());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("firma-signed-" + LocalDate.now() + ".zip")
+                        .build()
+                        .toString())
+                .body(archive);
+    }
+
+    /**
+     * Raise the async timeout of this request only: the archive streams for as long as upstream
+     * takes, while every other async response keeps the default timeout
+     */
+    private static void extendAsyncTimeout(HttpServletRequest request, Duration timeout) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        if (webRequest instanceof AsyncWebRequest asyncRequest) {
+                            asyncRequest.setTimeout(timeout.toMillis());
+                        }
+                    }
+                });
+    }
+
     /**
      * GET /api/firma/{id}/audit - Get audit trail
      */
     @GetMapping("/{id}/audit")
     public ResponseEntity<ApiResponse<Object>> getAuditTrail(
-            @PathVariable String id) {
+            @PathVariable String id, HttpServletResponse servletResponse) throws IOException {
 
         log.info("Fetching audit trail: {}", id);
 
+        if (relayed(servletResponse, "/firma_elettronica/{id}/audit", id)) {
+            return null;
+        }
+
         ApiResponse<Object> response = firmaService.getAuditTrail(id);
 
         if (response.isSuccess()) {
@@ -109,6 +383,25 @@ public class FirmaController {
         }
     }
 
+    /**
+     * Passthrough mode: true if the upstream response was already written as is.
+     * A relay that fails before writing anything falls back to the bound call.
+     */
+    private boolean relayed(HttpServletResponse servletResponse, String uriTemplate, Object... uriVariables)
+            throws IOException {
+        ServletRelayTarget target = new ServletRelayTarget(servletResponse);
+        try {
+            return firmaService.relay(target, uriTemplate, uriVariables);
+        } catch (IOException | RuntimeException e) {
+            if (target.isOpened() || e instanceof UpstreamBusyException) {
+                // A saturated lane would only make the fallback queue again
+                throw e;
+            }
+            log.warn("Passthrough of {} failed, answering from the bound client: {}", uriTemplate, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * GET /api/firma/health - Health check endpoint
      */
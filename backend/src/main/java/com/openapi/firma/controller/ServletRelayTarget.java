@@ -0,0 +1,39 @@
+package com.openapi.firma.controller;
+
+import com.openapi.firma.client.RelayTarget;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a relayed upstream response to the servlet response.
+ * Upstream server errors become 502 Bad Gateway, other statuses pass through.
+ */
+class ServletRelayTarget implements RelayTarget {
+
+    private final HttpServletResponse response;
+    private boolean opened;
+
+    ServletRelayTarget(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public OutputStream open(int status, HttpHeaders headers) throws IOException {
+        opened = true;
+        response.setStatus(status >= 500 ? HttpStatus.BAD_GATEWAY.value() : status);
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        }
+        return response.getOutputStream();
+    }
+
+    boolean isOpened() {
+        return opened;
+    }
+}
@@ -0,0 +1,60 @@
+package com.openapi.firma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsResponse {
+    private LocalDateTime generatedAt;
+    private long trackedRequests;
+    private Map<String, Long> statusCounts;
+    private TimeToSign timeToSign;
+    private Map<String, DocumentTypeStats> documentTypes;
+    private int windowHours;
+    private HourlyRollup window;
+    private List<HourlyRollup> hourly;
+
+    /**
+     * Time from invitation (member createdAt) to signature (member updatedAt), one sample per member
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TimeToSign {
+        private long samples;
+        private Double medianSeconds;
+        private Double p95Seconds;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DocumentTypeStats {
+        private long finished;
+        private long refused;
+        private long expired;
+        private Double refusalRate;
+        private TimeToSign timeToSign;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HourlyRollup {
+        private LocalDateTime from;
+        private Map<String, Long> transitions;
+        private TimeToSign timeToSign;
+    }
+}
@@ -1,5 +1,6 @@
 package com.openapi.firma.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,14 @@ public class ApiResponse<T> {
     private String message;
     private String error;
 
+    // Status of a failed upstream call, kept server side to tell rejected requests from transient failures
+    @JsonIgnore
+    private Integer upstreamStatus;
+
+    // Outbox entry of a request accepted but not dispatched yet, to look up its outcome later
+    @JsonIgnore
+    private Long outboxEntryId;
+
     public static <T> ApiResponse<T> success(T data, String message) {
         return ApiResponse.<T>builder()
                 .data(data)
@@ -29,4 +38,12 @@ public class ApiResponse<T> {
                 .error(error)
                 .build();
     }
+
+    public static <T> ApiResponse<T> upstreamError(String error, int upstreamStatus) {
+        return ApiResponse.<T>builder()
+                .success(false)
+                .error(error)
+                .upstreamStatus(upstreamStatus)
+                .build();
+    }
 }
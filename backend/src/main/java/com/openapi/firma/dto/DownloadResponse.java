@@ -1,5 +1,6 @@
 package com.openapi.firma.dto;
 
+import com.openapi.firma.payload.DocumentPayload;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +11,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DownloadResponse {
-    private String content; // Base64 encoded PDF
+    private DocumentPayload content; // PDF, Base64 encoded in JSON
     private boolean success;
     private String message;
     private String error;
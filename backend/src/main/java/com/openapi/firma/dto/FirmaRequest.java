@@ -1,6 +1,7 @@
 package com.openapi.firma.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.openapi.firma.payload.DocumentPayload;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,6 +10,7 @@ import lombok.NoArgsConstructor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import java.util.List;
 
@@ -26,8 +28,8 @@ public class FirmaRequest {
     @Builder.Default
     private String filename = "fes_" + System.currentTimeMillis() + ".pdf";
 
-    @NotBlank(message = "Content is required")
-    private String content; // Base64 encoded PDF
+    @NotNull(message = "Content is required")
+    private DocumentPayload content; // PDF, Base64 encoded in JSON
 
     @NotEmpty(message = "At least one member is required")
     @Valid
@@ -1,5 +1,6 @@
 package com.openapi.firma.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Data
 @Builder
@@ -23,6 +25,21 @@ public class FirmaResponse {
     private String callbackStatus;
     private Object callback;
 
+    /**
+     * When the request was created: upstream only reports it per member, take the earliest
+     */
+    @JsonIgnore
+    public LocalDateTime getRequestedAt() {
+        if (members == null) {
+            return null;
+        }
+        return members.stream()
+                .map(MemberStatus::getCreatedAt)
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
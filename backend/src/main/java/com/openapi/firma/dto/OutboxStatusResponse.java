@@ -0,0 +1,23 @@
+package com.openapi.firma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStatusResponse {
+    private Long id;
+    private String tenant;
+    private String status;
+    private int attempts;
+    private Instant createdAt;
+    private Instant nextAttemptAt;
+    private String lastError;
+    private FirmaResponse firma;
+}
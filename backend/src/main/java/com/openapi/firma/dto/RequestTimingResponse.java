@@ -0,0 +1,32 @@
+package com.openapi.firma.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestTimingResponse {
+    private Instant startedAt;
+    private String method;
+    private String path;
+    private int status;
+    private double totalMillis;
+    private List<PhaseTiming> phases;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PhaseTiming {
+        private String name;
+        private double offsetMillis;
+        private double durationMillis;
+    }
+}
@@ -0,0 +1,33 @@
+package com.openapi.firma.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Signature request on a stored template: no content, members without signs
+ * take the positions of their slot in the template layout.
+ * Members are validated like {@link FirmaRequest} once the layout is applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TemplateFirmaRequest {
+
+    private String title; // Defaults to the template name
+    private String description;
+    private String ui;
+    private String filename; // Defaults to the template filename
+
+    @NotEmpty(message = "At least one member is required")
+    private List<FirmaRequest.Member> members;
+
+    private FirmaRequest.Callback callback;
+}
@@ -0,0 +1,47 @@
+package com.openapi.firma.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.openapi.firma.payload.DocumentPayload;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Upload of a reusable document: the PDF and the default signature layout,
+ * one slot per signer in member order
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TemplateRequest {
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String description;
+    private String filename;
+
+    @NotNull(message = "Content is required")
+    private DocumentPayload content; // PDF, Base64 encoded in JSON
+
+    @Valid
+    private List<SignerLayout> layout;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public static class SignerLayout {
+        private String role; // Free label, e.g. "Cliente"
+        private List<FirmaRequest.SignPosition> signs;
+    }
+}
@@ -0,0 +1,31 @@
+package com.openapi.firma.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.openapi.firma.validation.PdfInfo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A stored template, without its content. Also the metadata file written next to the PDF.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class TemplateResponse {
+    private String id;
+    private String name;
+    private String description;
+    private String filename;
+    private PdfInfo document;
+    // Hex SHA-256 of the document, so requests on the template do not hash it again
+    private String sha256;
+    private List<TemplateRequest.SignerLayout> layout;
+    private Instant createdAt;
+}
@@ -0,0 +1,29 @@
+package com.openapi.firma.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Backend replica taking part in status polling, alive while its heartbeat is recent
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "cluster_node")
+public class ClusterNode {
+
+    @Id
+    @Column(length = 200)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Instant startedAt;
+
+    @Column(nullable = false)
+    private Instant heartbeatAt;
+}
@@ -0,0 +1,40 @@
+package com.openapi.firma.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Completed POST /firma response stored under its Idempotency-Key
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_record", indexes = {
+        @Index(name = "idx_idempotency_expires", columnList = "expiresAt")
+})
+public class IdempotencyRecord {
+
+    // Tenant scoped key: "<tenant>:<Idempotency-Key>"
+    @Id
+    @Column(length = 400)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 100)
+    private String fingerprint;
+
+    private int statusCode;
+
+    @Lob
+    private String responseJson;
+
+    // Set for a queued (202) response, whose outcome is looked up in the outbox on replay
+    private Long outboxEntryId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
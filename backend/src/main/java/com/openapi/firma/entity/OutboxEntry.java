@@ -0,0 +1,72 @@
+package com.openapi.firma.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Signature creation request accepted locally and waiting to be sent upstream.
+ * The document itself lives in the spool directory, only its path is stored here.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "signature_outbox", indexes = {
+        @Index(name = "idx_outbox_status", columnList = "status, id"),
+        @Index(name = "idx_outbox_tenant", columnList = "tenant, id")
+})
+public class OutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Bumped by every claim, so a dispatcher whose claim expired cannot overwrite a newer state
+    @Version
+    private Long version;
+
+    @Column(nullable = false, length = 100)
+    private String tenant;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    // FirmaRequest JSON without the document content
+    @Lob
+    @Column(nullable = false)
+    private String requestJson;
+
+    @Column(nullable = false, length = 500)
+    private String contentPath;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant nextAttemptAt;
+
+    // Claim of the node currently dispatching the entry
+    private Instant claimedUntil;
+
+    @Column(length = 2000)
+    private String lastError;
+
+    private String upstreamId;
+
+    // ApiResponse<FirmaResponse> JSON returned by upstream once sent
+    @Lob
+    private String responseJson;
+
+    public enum OutboxStatus {
+        PENDING,
+        IN_FLIGHT,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,45 @@
+package com.openapi.firma.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * In-flight signature request whose upstream status must be polled.
+ * Exactly one node owns it while {@code leaseUntil} is in the future.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "status_lease", indexes = {
+        @Index(name = "idx_lease_owner", columnList = "ownerNode, nextPollAt"),
+        @Index(name = "idx_lease_until", columnList = "leaseUntil")
+})
+public class StatusLease {
+
+    // Upstream signature request id
+    @Id
+    @Column(length = 100)
+    private String firmaId;
+
+    @Column(length = 200)
+    private String ownerNode;
+
+    private Instant leaseUntil;
+
+    @Column(nullable = false)
+    private Instant nextPollAt;
+
+    private Instant lastPolledAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Null until inserted, so registering a request never merges over a lease another node holds
+    @Version
+    private Long version;
+}
@@ -0,0 +1,16 @@
+package com.openapi.firma.exception;
+
+/**
+ * Raised when a document fails the local pre-flight checks
+ * (malformed Base64, not a PDF, signature outside the document).
+ */
+public class PdfValidationException extends RuntimeException {
+
+    public PdfValidationException(String message) {
+        super(message);
+    }
+
+    public PdfValidationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
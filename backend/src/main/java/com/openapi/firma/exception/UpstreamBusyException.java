@@ -0,0 +1,12 @@
+package com.openapi.firma.exception;
+
+/**
+ * Raised when an upstream call cannot start before the deadline of its lane
+ * (concurrency or rate budget exhausted by other calls).
+ */
+public class UpstreamBusyException extends RuntimeException {
+
+    public UpstreamBusyException(String message) {
+        super(message);
+    }
+}
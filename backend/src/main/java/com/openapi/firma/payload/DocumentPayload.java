@@ -0,0 +1,161 @@
+package com.openapi.firma.payload;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Binary document content (the decoded PDF).
+ * Small documents stay on the heap, larger ones live in a temp file;
+ * either way the content can be streamed any number of times.
+ * In JSON it is represented as a Base64 string, see {@link DocumentPayloadModule}.
+ */
+public final class DocumentPayload implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+    private final Cleaner.Cleanable cleanable;
+    private volatile byte[] sha256;
+
+    private DocumentPayload(byte[] bytes, Path file, long size, boolean ownsFile) {
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+        // Spilled files are removed on close() or, as a safety net, once the payload is unreachable
+        this.cleanable = ownsFile ? CLEANER.register(this, new FileReaper(file)) : null;
+    }
+
+    public static DocumentPayload empty() {
+        return new DocumentPayload(new byte[0], null, 0, false);
+    }
+
+    public static DocumentPayload fromBytes(byte[] bytes) {
+        return new DocumentPayload(bytes, null, bytes.length, false);
+    }
+
+    public static DocumentPayload fromBase64(String base64) {
+        return fromBytes(Base64.getMimeDecoder().decode(base64));
+    }
+
+    /**
+     * Wrap an existing file; the file is not deleted when the payload is closed
+     */
+    public static DocumentPayload fromFile(Path file) {
+        try {
+            return new DocumentPayload(null, file, Files.size(file), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read payload file " + file, e);
+        }
+    }
+
+    static DocumentPayload fromSpilledFile(Path file, long size) {
+        return new DocumentPayload(null, file, size, true);
+    }
+
+    public InputStream openStream() throws IOException {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (bytes != null) {
+            out.write(bytes);
+        } else {
+            Files.copy(file, out);
+        }
+    }
+
+    /**
+     * Copy the content to a file owned by the caller
+     */
+    public void copyTo(Path target) throws IOException {
+        if (bytes != null) {
+            Files.write(target, bytes);
+        } else {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * SHA-256 of the content: recorded while the payload was decoded, or computed on first use
+     */
+    public byte[] sha256() throws IOException {
+        byte[] digest = sha256;
+        if (digest == null) {
+            MessageDigest md = newSha256();
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), md)) {
+                writeTo(out);
+            }
+            digest = md.digest();
+            sha256 = digest;
+        }
+        return digest.clone();
+    }
+
+    /**
+     * Attach a digest known from elsewhere, e.g. stored next to the document, so it is never recomputed
+     */
+    public DocumentPayload withSha256(byte[] digest) {
+        this.sha256 = digest;
+        return this;
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isInMemory() {
+        return bytes != null;
+    }
+
+    @Override
+    public void close() {
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentPayload[size=" + size + (isInMemory() ? ", memory]" : ", file]");
+    }
+
+    private record FileReaper(Path file) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Temp directory cleanup will catch it
+            }
+        }
+    }
+}
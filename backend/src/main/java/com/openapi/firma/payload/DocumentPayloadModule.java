@@ -0,0 +1,78 @@
+package com.openapi.firma.payload;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+/**
+ * Jackson binding for {@link DocumentPayload}: a Base64 string in JSON,
+ * encoded and decoded as a stream without building the whole string.
+ */
+public class DocumentPayloadModule extends SimpleModule {
+
+    public DocumentPayloadModule(long memoryThreshold, Path tempDir) {
+        super("DocumentPayloadModule");
+        addSerializer(DocumentPayload.class, new Serializer());
+        addDeserializer(DocumentPayload.class, new Deserializer(memoryThreshold, tempDir));
+    }
+
+    static class Serializer extends JsonSerializer<DocumentPayload> {
+
+        @Override
+        public void serialize(DocumentPayload value, JsonGenerator gen, SerializerProvider serializers)
+                throws IOException {
+            int length = value.size() > Integer.MAX_VALUE ? -1 : (int) value.size();
+            try (InputStream in = value.openStream()) {
+                gen.writeBinary(in, length);
+            }
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, DocumentPayload value) {
+            return value == null || value.isEmpty();
+        }
+    }
+
+    static class Deserializer extends JsonDeserializer<DocumentPayload> {
+        private final long memoryThreshold;
+        private final Path tempDir;
+
+        Deserializer(long memoryThreshold, Path tempDir) {
+            this.memoryThreshold = memoryThreshold;
+            this.tempDir = tempDir;
+        }
+
+        @Override
+        public DocumentPayload deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() != JsonToken.VALUE_STRING) {
+                return (DocumentPayload) ctxt.handleUnexpectedToken(DocumentPayload.class, p);
+            }
+            SpillingOutputStream out = new SpillingOutputStream(memoryThreshold, tempDir);
+            // Hashed while decoded, so identifying the document later does not read it again
+            MessageDigest sha256 = DocumentPayload.newSha256();
+            try {
+                p.readBinaryValue(new DigestOutputStream(out, sha256));
+                return out.toPayload().withSha256(sha256.digest());
+            } catch (IOException | RuntimeException e) {
+                out.discard();
+                throw e;
+            }
+        }
+
+        @Override
+        public DocumentPayload getEmptyValue(DeserializationContext ctxt) {
+            return DocumentPayload.empty();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.openapi.firma.payload;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Collects bytes in memory up to a threshold, then moves them to a temp file.
+ * {@link #toPayload()} hands the result over as a {@link DocumentPayload}.
+ */
+public class SpillingOutputStream extends OutputStream {
+
+    private final long threshold;
+    private final Path tempDir;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream fileOut;
+    private Path file;
+    private long size;
+    private boolean closed;
+
+    public SpillingOutputStream(long threshold, Path tempDir) {
+        this.threshold = threshold;
+        this.tempDir = tempDir;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target(1).write(b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        target(length).write(buffer, offset, length);
+        size += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (fileOut != null) {
+                fileOut.close();
+            }
+        }
+    }
+
+    /**
+     * Close the stream and return what was written
+     */
+    public DocumentPayload toPayload() throws IOException {
+        close();
+        if (file != null) {
+            return DocumentPayload.fromSpilledFile(file, size);
+        }
+        return DocumentPayload.fromBytes(memory.toByteArray());
+    }
+
+    /**
+     * Delete the spilled file, if any, when the content is not needed anymore
+     */
+    public void discard() throws IOException {
+        close();
+        memory = null;
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private OutputStream target(int incoming) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (fileOut == null && size + incoming > threshold) {
+            Files.createDirectories(tempDir);
+            file = Files.createTempFile(tempDir, "payload-", ".bin");
+            fileOut = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+            memory.writeTo(fileOut);
+            memory = null;
+        }
+        return fileOut != null ? fileOut : memory;
+    }
+}
@@ -0,0 +1,48 @@
+package com.openapi.firma.repository;
+
+import com.openapi.firma.entity.OutboxEntry;
+import com.openapi.firma.entity.OutboxEntry.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    List<OutboxEntry> findByTenantAndStatusInOrderByIdAsc(String tenant, Collection<OutboxStatus> statuses,
+                                                          Pageable pageable);
+
+    /**
+     * The oldest undispatched entry of each tenant, if it is due: not backing off and not claimed
+     * by a live dispatcher. Tenants whose head is waiting are left out, the longest waiting come first.
+     */
+    @Query("select e from OutboxEntry e where e.id in ("
+            + "select min(h.id) from OutboxEntry h where h.status in :statuses group by h.tenant) "
+            + "and (e.nextAttemptAt is null or e.nextAttemptAt <= :now) "
+            + "and (e.status = com.openapi.firma.entity.OutboxEntry.OutboxStatus.PENDING or e.claimedUntil < :now) "
+            + "order by coalesce(e.nextAttemptAt, e.createdAt), e.id")
+    List<OutboxEntry> findDueTenantHeads(@Param("statuses") Collection<OutboxStatus> statuses,
+                                         @Param("now") Instant now, Pageable pageable);
+
+    long countByStatusIn(Collection<OutboxStatus> statuses);
+
+    Optional<OutboxEntry> findFirstByStatusInOrderByIdAsc(Collection<OutboxStatus> statuses);
+
+    /**
+     * Atomically take ownership of an entry; returns 0 if another dispatcher holds a live claim
+     */
+    @Modifying
+    @Transactional
+    @Query("update OutboxEntry e set e.status = com.openapi.firma.entity.OutboxEntry.OutboxStatus.IN_FLIGHT, "
+            + "e.claimedUntil = :until, e.version = e.version + 1 "
+            + "where e.id = :id and (e.status = com.openapi.firma.entity.OutboxEntry.OutboxStatus.PENDING "
+            + "or (e.status = com.openapi.firma.entity.OutboxEntry.OutboxStatus.IN_FLIGHT and e.claimedUntil < :now))")
+    int claim(@Param("id") Long id, @Param("now") Instant now, @Param("until") Instant until);
+}
@@ -0,0 +1,78 @@
+package com.openapi.firma.repository;
+
+import com.openapi.firma.entity.StatusLease;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StatusLeaseRepository extends JpaRepository<StatusLease, String> {
+
+    long countByOwnerNodeAndLeaseUntilAfter(String ownerNode, Instant now);
+
+    /**
+     * Leases nobody holds: never taken, released, or expired with a dead node
+     */
+    @Query("select l from StatusLease l where l.ownerNode is null or l.leaseUntil < :now order by l.nextPollAt")
+    List<StatusLease> findAcquirable(@Param("now") Instant now, Pageable pageable);
+
+    @Query("select l from StatusLease l where l.ownerNode = :node and l.leaseUntil >= :now "
+            + "and l.nextPollAt <= :now order by l.nextPollAt")
+    List<StatusLease> findDue(@Param("node") String node, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Leases to give away when rebalancing, the ones polled furthest in the future first
+     */
+    @Query("select l from StatusLease l where l.ownerNode = :node and l.leaseUntil >= :now order by l.nextPollAt desc")
+    List<StatusLease> findOwnedLatestFirst(@Param("node") String node, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Compare-and-set acquisition; returns 0 if another node holds a live lease
+     */
+    @Modifying
+    @Transactional
+    @Query("update StatusLease l set l.ownerNode = :node, l.leaseUntil = :until, l.version = l.version + 1 "
+            + "where l.firmaId = :id and (l.ownerNode is null or l.leaseUntil < :now or l.ownerNode = :node)")
+    int acquire(@Param("id") String id, @Param("node") String node,
+                @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Extend every live lease of the node; expired ones may already belong to someone else
+     */
+    @Modifying
+    @Transactional
+    @Query("update StatusLease l set l.leaseUntil = :until where l.ownerNode = :node and l.leaseUntil >= :now")
+    int renew(@Param("node") String node, @Param("now") Instant now, @Param("until") Instant until);
+
+    @Modifying
+    @Transactional
+    @Query("update StatusLease l set l.ownerNode = null, l.leaseUntil = null, l.version = l.version + 1 "
+            + "where l.firmaId = :id and l.ownerNode = :node")
+    int release(@Param("id") String id, @Param("node") String node);
+
+    @Modifying
+    @Transactional
+    @Query("update StatusLease l set l.ownerNode = null, l.leaseUntil = null, l.version = l.version + 1 "
+            + "where l.ownerNode = :node")
+    int releaseAll(@Param("node") String node);
+
+    /**
+     * Record a poll; ignored once the lease has expired, as another node may own it
+     */
+    @Modifying
+    @Transactional
+    @Query("update StatusLease l set l.lastPolledAt = :now, l.nextPollAt = :next "
+            + "where l.firmaId = :id and l.ownerNode = :node and l.leaseUntil >= :now")
+    int markPolled(@Param("id") String id, @Param("node") String node,
+                   @Param("now") Instant now, @Param("next") Instant next);
+
+    @Modifying
+    @Transactional
+    @Query("delete from StatusLease l where l.firmaId = :id")
+    int deleteByFirmaId(@Param("id") String id);
+}
@@ -0,0 +1,273 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.archive.SignedDocumentArchive;
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.client.SignedDocumentSink;
+import com.openapi.firma.client.UpstreamLane;
+import com.openapi.firma.client.UpstreamScheduler;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams many signed documents into a single ZIP archive.
+ * Downloads run in parallel with bounded concurrency; each one decodes its
+ * document straight from the upstream connection into the archive, so memory
+ * use does not depend on the archive size and no temp files are written.
+ * Entries are written in the order their content becomes available.
+ */
+@Slf4j
+@Service
+public class BulkExportService {
+
+    private final FirmaClient firmaClient;
+    private final SignedDocumentArchive archive;
+
+    @Value("${firma.export.concurrency:4}")
+    private int concurrency;
+
+    @Value("${firma.export.max-documents:5000}")
+    private int maxDocuments;
+
+    @Value("${firma.export.timeout:1h}")
+    private Duration timeout;
+
+    public BulkExportService(FirmaClient firmaClient, SignedDocumentArchive archive) {
+        this.firmaClient = firmaClient;
+        this.archive = archive;
+    }
+
+    /**
+     * Select the requests to export by status and creation date (inclusive)
+     */
+    public ApiResponse<List<ExportItem>> select(FirmaResponse.FirmaStatus status, LocalDate from, LocalDate to) {
+        ApiResponse<List<FirmaResponse>> all;
+        try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+            all = firmaClient.getAllFirmaRequests();
+        }
+        if (all == null || !all.isSuccess() || all.getData() == null) {
+            return ApiResponse.error(all != null ? all.getError() : "Failed to fetch signature requests");
+        }
+
+        List<ExportItem> items = new ArrayList<>();
+        for (FirmaResponse firma : all.getData()) {
+            if (status != null && firma.getStatus() != status) {
+                continue;
+            }
+            LocalDateTime requestedAt = firma.getRequestedAt();
+            if (from != null && (requestedAt == null || requestedAt.toLocalDate().isBefore(from))) {
+                continue;
+            }
+            if (to != null && (requestedAt == null || requestedAt.toLocalDate().isAfter(to))) {
+                continue;
+            }
+            items.add(new ExportItem(firma.getId(), firma.getFilename()));
+        }
+        return limit(items);
+    }
+
+    /**
+     * Select the requests to export by id; an id listed twice is exported once
+     */
+    public ApiResponse<List<ExportItem>> select(List<String> ids) {
+        return limit(new LinkedHashSet<>(ids).stream().map(id -> new ExportItem(id, null)).toList());
+    }
+
+    /**
+     * How long one archive may keep streaming, for as long as upstream takes
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Write the archive; documents that cannot be downloaded, or whose entry was cut short
+     * by a failed download, are listed in errors.txt. If writing to {@code out} fails (the
+     * client went away) the remaining downloads are cancelled and the failure is rethrown.
+     */
+    public void writeArchive(List<ExportItem> items, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        ReentrantLock zipLock = new ReentrantLock();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicReference<IOException> outputFailure = new AtomicReference<>();
+        Map<String, String> entryNames = new HashMap<>();
+        for (ExportItem item : items) {
+            entryNames.put(item.id(), entryName(item));
+        }
+
+        ExecutorService downloads = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, items.size())));
+
+        // Any write failure on the archive means the response is lost: stop calling upstream
+        Consumer<IOException> abort = e -> {
+            if (outputFailure.compareAndSet(null, e)) {
+                log.info("Archive export aborted, the output failed: {}", e.getMessage());
+                downloads.shutdownNow();
+            }
+        };
+        OutputStream entryOut = new FilterOutputStream(StreamUtils.nonClosing(zip)) {
+            @Override
+            public void write(int b) throws IOException {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    abort.accept(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    out.write(b, off, len);
+                } catch (IOException e) {
+                    abort.accept(e);
+                    throw e;
+                }
+            }
+        };
+
+        SignedDocumentSink sink = new SignedDocumentSink() {
+            @Override
+            public OutputStream open(String id) throws IOException {
+                // Held until close(): the archive is written one entry at a time
+                zipLock.lock();
+                try {
+                    zip.putNextEntry(new ZipEntry(entryNames.get(id)));
+                } catch (ZipException e) {
+                    // The entry itself is invalid (e.g. a duplicate name), the output is fine
+                    zipLock.unlock();
+                    throw e;
+                } catch (IOException e) {
+                    zipLock.unlock();
+                    abort.accept(e);
+                    throw e;
+                } catch (RuntimeException e) {
+                    zipLock.unlock();
+                    throw e;
+                }
+                return entryOut;
+            }
+
+            @Override
+            public void close(String id, boolean complete) throws IOException {
+                try {
+                    zip.closeEntry();
+                } catch (IOException e) {
+                    abort.accept(e);
+                    throw e;
+                } finally {
+                    zipLock.unlock();
+                }
+                if (!complete) {
+                    // A ZIP entry cannot be taken back once written
+                    failures.add(entryNames.get(id) + ": incomplete, the entry is truncated");
+                }
+            }
+        };
+
+        try {
+            for (ExportItem item : items) {
+                if (outputFailure.get() != null || downloads.isShutdown()) {
+                    // A failed write shut the pool down, nothing more is submitted
+                    break;
+                }
+                submit(downloads, () -> {
+                    if (outputFailure.get() != null) {
+                        return;
+                    }
+                    // Exports queue behind interactive reads instead of competing with them
+                    try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+                        // Archived documents are read locally, without an upstream call
+                        if (!archive.streamTo(item.id(), sink) && !firmaClient.streamSignedDocument(item.id(), sink)) {
+                            failures.add(item.id() + ": no signed document available");
+                        }
+                    } catch (Exception e) {
+                        if (outputFailure.get() == null) {
+                            log.warn("Export of signed document {} failed: {}", item.id(), e.getMessage());
+                            failures.add(item.id() + ": " + e.getMessage());
+                        }
+                    }
+                });
+            }
+            downloads.shutdown();
+            while (!downloads.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("Archive export still running");
+            }
+        } catch (InterruptedException e) {
+            downloads.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive export interrupted", e);
+        }
+
+        IOException failed = outputFailure.get();
+        if (failed != null) {
+            throw failed;
+        }
+
+        if (!failures.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("errors.txt"));
+            zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+
+        log.info("Exported {} signed documents ({} failed) in {} ms",
+                items.size() - failures.size(), failures.size(), System.currentTimeMillis() - start);
+    }
+
+    private static void submit(ExecutorService downloads, Runnable download) {
+        try {
+            downloads.execute(download);
+        } catch (RejectedExecutionException e) {
+            // Shut down by a failed write between the check and the submission
+            log.debug("Archive export no longer accepts downloads");
+        }
+    }
+
+    private ApiResponse<List<ExportItem>> limit(List<ExportItem> items) {
+        if (items.size() > maxDocuments) {
+            return ApiResponse.error("Too many documents for one archive: " + items.size()
+                    + " (max " + maxDocuments + "), narrow the date range");
+        }
+        return ApiResponse.success(items, items.size() + " documents selected");
+    }
+
+    private static String entryName(ExportItem item) {
+        String filename = item.filename() != null && !item.filename().isBlank() ? item.filename() : "document.pdf";
+        // Ids keep entry names unique, the original filename keeps them readable
+        return item.id() + "_" + filename.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    public record ExportItem(String id, String filename) {
+    }
+}
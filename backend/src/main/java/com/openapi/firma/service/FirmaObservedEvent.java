@@ -0,0 +1,10 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.dto.FirmaResponse;
+
+/**
+ * Published whenever a signature request is seen from upstream
+ * (created, listed, fetched or polled), carrying its latest state.
+ */
+public record FirmaObservedEvent(FirmaResponse firma) {
+}
@@ -0,0 +1,411 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.client.UpstreamLane;
+import com.openapi.firma.client.UpstreamScheduler;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.dto.FirmaResponse.FirmaStatus;
+import com.openapi.firma.dto.FirmaResponse.MemberStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory secondary indexes over the signature requests seen from upstream:
+ * an inverted index of signer email/phone/name tokens, one bitmap per status
+ * and a time-ordered set of creation dates. Updated incrementally from
+ * {@link FirmaObservedEvent}s, queried under a read lock.
+ */
+@Slf4j
+@Component
+public class FirmaSearchIndex {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    // Time keys pack (epoch second, doc number) into one sortable long
+    private static final int DOC_BITS = 30;
+    private static final long DOC_MASK = (1L << DOC_BITS) - 1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final FirmaClient firmaClient;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${firma.search.warm-up:true}")
+    private boolean warmUp;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> docNumbers = new HashMap<>();
+    private final List<FirmaResponse> docs = new ArrayList<>();
+    private long[] times = new long[1024];
+    private final Map<String, IntArraySet> postings = new HashMap<>();
+    private final Map<FirmaStatus, BitSet> statuses = new EnumMap<>(FirmaStatus.class);
+    private final TreeSet<Long> timeline = new TreeSet<>();
+
+    public FirmaSearchIndex(FirmaClient firmaClient, ApplicationEventPublisher eventPublisher) {
+        this.firmaClient = firmaClient;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Seed the index with the current upstream list, later changes arrive as events
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+            ApiResponse<List<FirmaResponse>> all = firmaClient.getAllFirmaRequests();
+            if (all != null && all.isSuccess() && all.getData() != null) {
+                all.getData().forEach(this::observe);
+                log.info("Search index warmed up with {} signature requests", size());
+            }
+        } catch (Exception e) {
+            log.warn("Search index warm-up failed, it fills as requests are observed: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onObserved(FirmaObservedEvent event) {
+        observe(event.firma());
+    }
+
+    /**
+     * Index the request and publish a {@link FirmaTransitionEvent} if its state changed
+     */
+    private void observe(FirmaResponse firma) {
+        if (firma == null || firma.getId() == null) {
+            return;
+        }
+        FirmaResponse previous = upsert(firma);
+        if (previous == null || changed(previous, firma)) {
+            eventPublisher.publishEvent(new FirmaTransitionEvent(previous, firma));
+        }
+    }
+
+    private static boolean changed(FirmaResponse previous, FirmaResponse current) {
+        if (previous.getStatus() != current.getStatus()) {
+            return true;
+        }
+        List<MemberStatus> before = previous.getMembers() != null ? previous.getMembers() : List.of();
+        List<MemberStatus> after = current.getMembers() != null ? current.getMembers() : List.of();
+        if (before.size() != after.size()) {
+            return true;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            if (!Objects.equals(before.get(i).getStatus(), after.get(i).getStatus())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Index the latest state of a request
+     *
+     * @return the previously indexed state, or null if the request is new
+     */
+    public FirmaResponse upsert(FirmaResponse firma) {
+        if (firma == null || firma.getId() == null) {
+            return null;
+        }
+        // Keep a private snapshot: callers may keep mutating their instance
+        FirmaResponse snapshot = copyOf(firma);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = docNumbers.get(snapshot.getId());
+            int doc;
+            FirmaResponse previous = null;
+            if (existing != null) {
+                doc = existing;
+                previous = docs.get(doc);
+                unindex(doc, previous);
+                docs.set(doc, snapshot);
+            } else {
+                doc = docs.size();
+                docNumbers.put(snapshot.getId(), doc);
+                docs.add(snapshot);
+                if (doc == times.length) {
+                    times = Arrays.copyOf(times, times.length * 2);
+                }
+            }
+            index(doc, snapshot);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compound query; every criterion is optional. Results are newest first.
+     */
+    public List<FirmaResponse> search(Query query) {
+        lock.readLock().lock();
+        try {
+            long fromKey = query.from() != null ? timeKey(epochSecond(query.from()), 0) : Long.MIN_VALUE;
+            long toKey = query.to() != null ? timeKey(epochSecond(query.to()), DOC_MASK) : Long.MAX_VALUE;
+            BitSet statusFilter = statusFilter(query.statuses());
+            List<String> terms = queryTerms(query.signer());
+
+            List<Integer> matches = new ArrayList<>();
+            if (!terms.isEmpty()) {
+                // Most selective path: intersect the posting lists, then filter
+                IntArraySet smallest = null;
+                for (String term : terms) {
+                    IntArraySet posting = postings.get(term);
+                    if (posting == null) {
+                        return List.of();
+                    }
+                    if (smallest == null || posting.size() < smallest.size()) {
+                        smallest = posting;
+                    }
+                }
+                for (int i = 0; i < smallest.size(); i++) {
+                    int doc = smallest.get(i);
+                    if (containsAll(terms, doc) && accepts(doc, query, statusFilter, fromKey, toKey)) {
+                        matches.add(doc);
+                    }
+                }
+                matches.sort(Comparator.comparingLong((Integer doc) -> times[doc]).reversed());
+                if (matches.size() > query.limit()) {
+                    matches = matches.subList(0, query.limit());
+                }
+            } else {
+                // Walk the timeline newest first and stop at the limit
+                NavigableSet<Long> range = timeline.subSet(fromKey, true, toKey, true).descendingSet();
+                for (long key : range) {
+                    int doc = (int) (key & DOC_MASK);
+                    if (accepts(doc, query, statusFilter, Long.MIN_VALUE, Long.MAX_VALUE)) {
+                        matches.add(doc);
+                        if (matches.size() == query.limit()) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            List<FirmaResponse> results = new ArrayList<>(matches.size());
+            for (int doc : matches) {
+                results.add(docs.get(doc));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean accepts(int doc, Query query, BitSet statusFilter, long fromKey, long toKey) {
+        if (statusFilter != null && !statusFilter.get(doc)) {
+            return false;
+        }
+        if (fromKey != Long.MIN_VALUE || toKey != Long.MAX_VALUE) {
+            if (times[doc] == NO_TIME) {
+                return false;
+            }
+            long key = timeKey(times[doc], doc);
+            if (key < fromKey || key > toKey) {
+                return false;
+            }
+        }
+        return query.memberStatus() == null || hasMemberStatus(docs.get(doc), query);
+    }
+
+    private boolean hasMemberStatus(FirmaResponse firma, Query query) {
+        if (firma.getMembers() == null) {
+            return false;
+        }
+        // With a signer the status must be that signer's, otherwise any member's
+        List<String> signerTerms = queryTerms(query.signer());
+        for (MemberStatus member : firma.getMembers()) {
+            if (query.memberStatus().equalsIgnoreCase(member.getStatus())
+                    && (signerTerms.isEmpty() || memberTerms(member).containsAll(signerTerms))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsAll(List<String> terms, int doc) {
+        for (String term : terms) {
+            if (!postings.get(term).contains(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BitSet statusFilter(Collection<FirmaStatus> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return null;
+        }
+        BitSet filter = new BitSet();
+        for (FirmaStatus status : wanted) {
+            BitSet bits = statuses.get(status);
+            if (bits != null) {
+                filter.or(bits);
+            }
+        }
+        return filter;
+    }
+
+    private void index(int doc, FirmaResponse firma) {
+        for (String term : documentTerms(firma)) {
+            postings.computeIfAbsent(term, t -> new IntArraySet()).add(doc);
+        }
+        if (firma.getStatus() != null) {
+            statuses.computeIfAbsent(firma.getStatus(), s -> new BitSet()).set(doc);
+        }
+        LocalDateTime requestedAt = firma.getRequestedAt();
+        times[doc] = requestedAt != null ? epochSecond(requestedAt) : NO_TIME;
+        if (times[doc] != NO_TIME) {
+            timeline.add(timeKey(times[doc], doc));
+        }
+    }
+
+    private void unindex(int doc, FirmaResponse firma) {
+        for (String term : documentTerms(firma)) {
+            IntArraySet posting = postings.get(term);
+            if (posting != null && posting.remove(doc) && posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        if (firma.getStatus() != null) {
+            statuses.get(firma.getStatus()).clear(doc);
+        }
+        if (times[doc] != NO_TIME) {
+            timeline.remove(timeKey(times[doc], doc));
+        }
+    }
+
+    private static Set<String> documentTerms(FirmaResponse firma) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (firma.getMembers() != null) {
+            for (MemberStatus member : firma.getMembers()) {
+                terms.addAll(memberTerms(member));
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> memberTerms(MemberStatus member) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (member.getEmail() != null && !member.getEmail().isBlank()) {
+            terms.add("e:" + member.getEmail().trim().toLowerCase(Locale.ROOT));
+        }
+        if (member.getPhone() != null && !member.getPhone().isBlank()) {
+            terms.add("p:" + digits(member.getPhone()));
+        }
+        addNameTerms(terms, member.getFirstname());
+        addNameTerms(terms, member.getLastname());
+        return terms;
+    }
+
+    /**
+     * An email or phone is matched exactly, anything else as name tokens
+     */
+    private static List<String> queryTerms(String signer) {
+        if (signer == null || signer.isBlank()) {
+            return List.of();
+        }
+        String value = signer.trim().toLowerCase(Locale.ROOT);
+        if (value.contains("@")) {
+            return List.of("e:" + value);
+        }
+        if (value.matches("\\+?[0-9 ]+")) {
+            return List.of("p:" + digits(value));
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        addNameTerms(terms, value);
+        return new ArrayList<>(terms);
+    }
+
+    private static void addNameTerms(Set<String> terms, String name) {
+        if (name == null) {
+            return;
+        }
+        for (String token : name.toLowerCase(Locale.ROOT).split("[\\s'-]+")) {
+            if (!token.isEmpty()) {
+                terms.add("n:" + token);
+            }
+        }
+    }
+
+    private static String digits(String phone) {
+        return phone.replaceAll("[^0-9]", "");
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.atZone(ZONE).toEpochSecond();
+    }
+
+    private static long timeKey(long epochSecond, long doc) {
+        return (epochSecond << DOC_BITS) | doc;
+    }
+
+    private static FirmaResponse copyOf(FirmaResponse firma) {
+        List<MemberStatus> members = null;
+        if (firma.getMembers() != null) {
+            members = new ArrayList<>(firma.getMembers().size());
+            for (MemberStatus member : firma.getMembers()) {
+                members.add(MemberStatus.builder()
+                        .firstname(member.getFirstname())
+                        .lastname(member.getLastname())
+                        .email(member.getEmail())
+                        .phone(member.getPhone())
+                        .status(member.getStatus())
+                        .createdAt(member.getCreatedAt())
+                        .updatedAt(member.getUpdatedAt())
+                        .signLink(member.getSignLink())
+                        .build());
+            }
+        }
+        return FirmaResponse.builder()
+                .id(firma.getId())
+                .filename(firma.getFilename())
+                .title(firma.getTitle())
+                .description(firma.getDescription())
+                .members(members)
+                .status(firma.getStatus())
+                .downloadLink(firma.getDownloadLink())
+                .callbackStatus(firma.getCallbackStatus())
+                .callback(firma.getCallback())
+                .build();
+    }
+
+    public record Query(String signer, Set<FirmaStatus> statuses, String memberStatus,
+                        LocalDateTime from, LocalDateTime to, int limit) {
+    }
+}
@@ -1,24 +1,56 @@
 package com.openapi.firma.service;
 
-import com.openapi.firma.client.OpenApiFirmaClient;
+import com.openapi.firma.archive.SignedDocumentArchive;
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.client.RelayTarget;
 import com.openapi.firma.dto.*;
+import com.openapi.firma.entity.OutboxEntry;
+import com.openapi.firma.exception.PdfValidationException;
+import com.openapi.firma.payload.DocumentPayload;
+import com.openapi.firma.timing.RequestTimeline;
+import com.openapi.firma.validation.PdfInfo;
+import com.openapi.firma.validation.PdfPreflightValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FirmaService {
 
-    private final OpenApiFirmaClient firmaClient;
+    private final FirmaClient firmaClient;
+    private final PdfPreflightValidator preflightValidator;
+    private final SignatureOutbox outbox;
+    private final FirmaSearchIndex searchIndex;
+    private final SignedDocumentArchive archive;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${firma.passthrough.enabled:false}")
+    private boolean passthrough;
+
+    /**
+     * Create a new signature request.
+     * With the outbox enabled the request is persisted first; a response without
+     * data means it is still queued for dispatch.
+     */
+    public ApiResponse<FirmaResponse> createSignatureRequest(FirmaRequest request, String tenant) {
+        return createSignatureRequest(request, null, tenant);
+    }
 
     /**
-     * Create a new signature request
+     * Create a signature request on a document whose structure is already known,
+     * so the pre-flight only checks the signature positions
      */
-    public ApiResponse<FirmaResponse> createSignatureRequest(FirmaRequest request) {
+    public ApiResponse<FirmaResponse> createSignatureRequest(FirmaRequest request, PdfInfo documentInfo, String tenant) {
         log.info("Processing signature request for {} members", request.getMembers().size());
 
         // Validate request
@@ -37,14 +69,44 @@ public class FirmaService {
             }
         }
 
+        // Reject malformed documents and out-of-range signatures before the upload
+        try (RequestTimeline.Span span = RequestTimeline.phase("preflight")) {
+            preflightValidator.validate(request, documentInfo);
+        } catch (PdfValidationException e) {
+            log.warn("Pre-flight validation failed: {}", e.getMessage());
+            return ApiResponse.error(e.getMessage());
+        }
+
         try {
-            return firmaClient.createFirmaRequest(request);
+            if (outbox.isEnabled()) {
+                // The dispatcher publishes the created request once it is sent
+                OutboxEntry entry;
+                try (RequestTimeline.Span span = RequestTimeline.phase("enqueue")) {
+                    entry = outbox.enqueue(tenant, request);
+                }
+                try (RequestTimeline.Span span = RequestTimeline.phase("upstream")) {
+                    return outbox.awaitResult(entry);
+                }
+            }
+            try (RequestTimeline.Span span = RequestTimeline.phase("upstream")) {
+                return observed(firmaClient.createFirmaRequest(request));
+            }
         } catch (Exception e) {
             log.error("Error creating signature request", e);
             return ApiResponse.error("Failed to create signature request: " + e.getMessage());
+        } finally {
+            // Drop the spilled temp file as soon as the upload is done
+            request.getContent().close();
         }
     }
 
+    /**
+     * Get the dispatch status of a queued signature request
+     */
+    public Optional<OutboxStatusResponse> getOutboxStatus(Long id) {
+        return outbox.findStatus(id);
+    }
+
     /**
      * Get all signature requests
      */
@@ -52,13 +114,46 @@ public class FirmaService {
         log.info("Fetching all signature requests");
 
         try {
-            return firmaClient.getAllFirmaRequests();
+            ApiResponse<List<FirmaResponse>> response = firmaClient.getAllFirmaRequests();
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                response.getData().forEach(firma -> eventPublisher.publishEvent(new FirmaObservedEvent(firma)));
+            }
+            return response;
         } catch (Exception e) {
             log.error("Error fetching signature requests", e);
             return ApiResponse.error("Failed to fetch signature requests: " + e.getMessage());
         }
     }
 
+    /**
+     * Relay a read endpoint unchanged from upstream when passthrough is enabled.
+     * Relayed responses are never bound, so they do not update the search index.
+     *
+     * @return false if the caller must answer through the bound client call
+     */
+    public boolean relay(RelayTarget target, String uriTemplate, Object... uriVariables) throws IOException {
+        if (!passthrough) {
+            return false;
+        }
+        return firmaClient.relay(target, uriTemplate, uriVariables);
+    }
+
+    /**
+     * Search the signature requests seen so far by signer, status and creation date
+     */
+    public ApiResponse<List<FirmaResponse>> searchSignatureRequests(String signer, Set<FirmaResponse.FirmaStatus> statuses,
+                                                                    String memberStatus, LocalDateTime from,
+                                                                    LocalDateTime to, int limit) {
+        long start = System.nanoTime();
+        List<FirmaResponse> results = searchIndex.search(new FirmaSearchIndex.Query(
+                signer, statuses, memberStatus, from, to, Math.max(1, limit)));
+        long micros = (System.nanoTime() - start) / 1000;
+        log.debug("Search signer={}, statuses={}, memberStatus={} matched {} in {} us",
+                signer, statuses, memberStatus, results.size(), micros);
+        return ApiResponse.success(results, results.size() + " of " + searchIndex.size()
+                + " indexed requests matched in " + micros + " us");
+    }
+
     /**
      * Get signature request by ID
      */
@@ -70,7 +165,7 @@ public class FirmaService {
         }
 
         try {
-            return firmaClient.getFirmaRequestById(id);
+            return observed(firmaClient.getFirmaRequestById(id));
         } catch (Exception e) {
             log.error("Error fetching signature request: {}", id, e);
             return ApiResponse.error("Failed to fetch signature request: " + e.getMessage());
@@ -91,7 +186,25 @@ public class FirmaService {
         }
 
         try {
-            return firmaClient.downloadSignedDocument(id);
+            Optional<DocumentPayload> archived = archive.find(id);
+            if (archived.isPresent()) {
+                return DownloadResponse.builder()
+                        .success(true)
+                        .content(archived.get())
+                        .message("Signed document served from the local archive")
+                        .build();
+            }
+
+            DownloadResponse response = firmaClient.downloadSignedDocument(id);
+            if (response != null && response.isSuccess() && response.getContent() != null) {
+                try {
+                    archive.store(id, response.getContent());
+                } catch (IOException e) {
+                    // The download itself succeeded, the next one retries the archiving
+                    log.warn("Cannot archive signed document {}: {}", id, e.getMessage());
+                }
+            }
+            return response;
         } catch (Exception e) {
             log.error("Error downloading signed document: {}", id, e);
             return DownloadResponse.builder()
@@ -118,4 +231,11 @@ public class FirmaService {
             return ApiResponse.error("Failed to fetch audit trail: " + e.getMessage());
         }
     }
+
+    private ApiResponse<FirmaResponse> observed(ApiResponse<FirmaResponse> response) {
+        if (response != null && response.isSuccess() && response.getData() != null) {
+            eventPublisher.publishEvent(new FirmaObservedEvent(response.getData()));
+        }
+        return response;
+    }
 }
@@ -0,0 +1,10 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.dto.FirmaResponse;
+
+/**
+ * Published by {@link FirmaSearchIndex} when an observed request is new or its
+ * status or a member status changed. {@code previous} is null for new requests.
+ */
+public record FirmaTransitionEvent(FirmaResponse previous, FirmaResponse current) {
+}
@@ -0,0 +1,361 @@
+package com.openapi.firma.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.config.IdempotencyProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.entity.IdempotencyRecord;
+import com.openapi.firma.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key index for POST /firma.
+ * Keys are partitioned over independently locked stripes. The first request
+ * with a key executes; concurrent duplicates wait for its outcome and later
+ * ones get the stored response replayed until it expires.
+ */
+@Slf4j
+@Service
+public class IdempotencyStore {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyRecordRepository repository;
+    private final SignatureOutbox outbox;
+    private final ObjectMapper objectMapper;
+    private final Stripe[] stripes;
+
+    public IdempotencyStore(IdempotencyProperties properties, IdempotencyRecordRepository repository,
+                            SignatureOutbox outbox, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.repository = repository;
+        this.outbox = outbox;
+        this.objectMapper = objectMapper;
+
+        int count = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * SHA-256 identity of the request body, to detect a key reused for a different request.
+     * Covers the document content and what the client chose (title, signers, positions, callback);
+     * the filename is left out because the server fills it in with a timestamp when it is omitted.
+     */
+    public static String fingerprint(FirmaRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        update(digest, request.getTitle());
+        update(digest, request.getDescription());
+        update(digest, request.getUi());
+        if (request.getMembers() != null) {
+            for (FirmaRequest.Member member : request.getMembers()) {
+                update(digest, member.getFirstname());
+                update(digest, member.getLastname());
+                update(digest, member.getEmail());
+                update(digest, member.getPhone());
+                if (member.getSigns() != null) {
+                    for (FirmaRequest.SignPosition sign : member.getSigns()) {
+                        update(digest, String.valueOf(sign.getPage()));
+                        update(digest, sign.getPosition());
+                    }
+                }
+                update(digest, "|member");
+            }
+        }
+        if (request.getCallback() != null) {
+            update(digest, request.getCallback().getField());
+            update(digest, request.getCallback().getUrl());
+        }
+        if (request.getContent() != null) {
+            try {
+                digest.update(request.getContent().sha256());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot hash the document", e);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // Length-prefixed, so adjacent fields cannot run into each other
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value == null ? -1 : bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Run {@code action} at most once per key within the TTL
+     */
+    public ResponseEntity<ApiResponse<FirmaResponse>> execute(
+            String key, String fingerprint, Supplier<ResponseEntity<ApiResponse<FirmaResponse>>> action) {
+
+        Stripe stripe = stripeFor(key);
+        Entry entry;
+        boolean owner = false;
+
+        stripe.lock.lock();
+        try {
+            entry = stripe.entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                stripe.entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = loadPersisted(key);
+            }
+            if (entry == null) {
+                entry = new Entry(fingerprint);
+                owner = true;
+            }
+            stripe.entries.put(key, entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!owner) {
+            return replay(key, fingerprint, entry);
+        }
+
+        ResponseEntity<ApiResponse<FirmaResponse>> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            forget(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        if (isReplayable(result)) {
+            entry.expiresAt = Instant.now().plus(properties.getTtl());
+            if (result.getStatusCode() == HttpStatus.ACCEPTED && result.getBody() != null) {
+                entry.outboxEntryId = result.getBody().getOutboxEntryId();
+            }
+            persist(key, entry, result);
+        } else {
+            // Failure: a retry with the same key must run again
+            forget(key, entry);
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${firma.idempotency.sweep-interval:PT1M}")
+    public void sweepExpired() {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Entry> it = stripe.entries.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().isExpired()) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (properties.getPersistence().isEnabled()) {
+            removed += repository.deleteExpired(Instant.now());
+        }
+        if (removed > 0) {
+            log.debug("Expired {} idempotency keys", removed);
+        }
+    }
+
+    private ResponseEntity<ApiResponse<FirmaResponse>> replay(String key, String fingerprint, Entry entry) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            log.warn("Idempotency-Key {} reused for a different request", key);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ApiResponse.error("Idempotency-Key was already used for a different request"));
+        }
+
+        ResponseEntity<ApiResponse<FirmaResponse>> original;
+        try {
+            original = entry.result.get(properties.getInFlightWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("A request with this Idempotency-Key is still in progress"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Interrupted while waiting for the original request"));
+        } catch (ExecutionException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Original request failed: " + e.getCause().getMessage()));
+        }
+
+        if (entry.outboxEntryId != null) {
+            original = settle(key, entry, original);
+        }
+
+        log.info("Replaying response for Idempotency-Key {}", key);
+        return ResponseEntity.status(original.getStatusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    /**
+     * A queued (202) submission is only final for as long as it is queued: once the outbox
+     * has sent it the replay becomes the created response, and once it has failed the key
+     * is released like any other failure.
+     */
+    private ResponseEntity<ApiResponse<FirmaResponse>> settle(
+            String key, Entry entry, ResponseEntity<ApiResponse<FirmaResponse>> queued) {
+        Optional<ApiResponse<FirmaResponse>> outcome = outbox.findOutcome(entry.outboxEntryId);
+        if (outcome.isEmpty()) {
+            return queued;
+        }
+        ApiResponse<FirmaResponse> response = outcome.get();
+        if (!response.isSuccess()) {
+            forget(key, entry);
+            if (properties.getPersistence().isEnabled()) {
+                repository.deleteById(key);
+            }
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        ResponseEntity<ApiResponse<FirmaResponse>> created = ResponseEntity.status(HttpStatus.CREATED).body(response);
+        Entry settled = new Entry(entry.fingerprint);
+        settled.expiresAt = entry.expiresAt;
+        settled.result.complete(created);
+        replace(key, entry, settled);
+        persist(key, settled, created);
+        return created;
+    }
+
+    /**
+     * Created and queued submissions are stored. Failures are not: this controller
+     * reports upstream outages as 400 too, and a retry must be able to succeed.
+     */
+    private static boolean isReplayable(ResponseEntity<?> result) {
+        return result.getStatusCode().is2xxSuccessful();
+    }
+
+    private void forget(String key, Entry entry) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(key, entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void replace(String key, Entry current, Entry replacement) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.entries.replace(key, current, replacement);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Entry loadPersisted(String key) {
+        if (!properties.getPersistence().isEnabled()) {
+            return null;
+        }
+        return repository.findById(key)
+                .filter(record -> record.getExpiresAt().isAfter(Instant.now()))
+                .map(record -> {
+                    try {
+                        ApiResponse<FirmaResponse> body = objectMapper.readValue(record.getResponseJson(),
+                                new TypeReference<ApiResponse<FirmaResponse>>() {});
+                        Entry entry = new Entry(record.getFingerprint());
+                        entry.expiresAt = record.getExpiresAt();
+                        entry.outboxEntryId = record.getOutboxEntryId();
+                        entry.result.complete(ResponseEntity.status(record.getStatusCode()).body(body));
+                        return entry;
+                    } catch (IOException e) {
+                        log.warn("Cannot read stored response for Idempotency-Key {}", key, e);
+                        return null;
+                    }
+                })
+                .orElse(null);
+    }
+
+    private void persist(String key, Entry entry, ResponseEntity<ApiResponse<FirmaResponse>> result) {
+        if (!properties.getPersistence().isEnabled()) {
+            return;
+        }
+        try {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setIdempotencyKey(key);
+            record.setFingerprint(entry.fingerprint);
+            record.setStatusCode(result.getStatusCode().value());
+            record.setResponseJson(objectMapper.writeValueAsString(result.getBody()));
+            record.setExpiresAt(entry.expiresAt);
+            record.setOutboxEntryId(entry.outboxEntryId);
+            repository.save(record);
+        } catch (Exception e) {
+            // The in-memory index still deduplicates; only replay across restarts is lost
+            log.warn("Cannot persist Idempotency-Key {}", key, e);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> entries = new HashMap<>();
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<ApiResponse<FirmaResponse>>> result = new CompletableFuture<>();
+        // Set once completed; in-flight entries never expire
+        private volatile Instant expiresAt;
+        private volatile Long outboxEntryId;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired() {
+            Instant expiry = expiresAt;
+            return expiry != null && expiry.isBefore(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.openapi.firma.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.config.OutboxProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.entity.OutboxEntry;
+import com.openapi.firma.entity.OutboxEntry.OutboxStatus;
+import com.openapi.firma.payload.DocumentPayload;
+import com.openapi.firma.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the {@link SignatureOutbox}: sends queued requests upstream, retrying
+ * failures with exponential backoff. Entries of the same tenant are sent
+ * strictly in order; each tenant has its own lane, and lanes take turns on the
+ * workers one entry at a time, so neither a tenant waiting on a retry nor one
+ * with a long backlog holds up the others.
+ */
+@Slf4j
+@Service
+public class OutboxDispatcher {
+
+    private static final Set<OutboxStatus> ACTIVE = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.IN_FLIGHT);
+
+    private final OutboxRepository repository;
+    private final SignatureOutbox outbox;
+    private final FirmaClient firmaClient;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    private final Set<String> activeLanes = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService workers;
+    private Thread loop;
+    private volatile boolean running;
+
+    public OutboxDispatcher(OutboxRepository repository, SignatureOutbox outbox, FirmaClient firmaClient,
+                            OutboxProperties properties, ObjectMapper objectMapper,
+                            ApplicationEventPublisher eventPublisher, MeterRegistry registry) {
+        this.repository = repository;
+        this.outbox = outbox;
+        this.firmaClient = firmaClient;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+
+        Gauge.builder("firma.outbox.depth", depth, AtomicLong::get)
+                .description("Signature requests waiting to be dispatched")
+                .register(registry);
+        Gauge.builder("firma.outbox.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("Age of the oldest undispatched signature request")
+                .register(registry);
+        this.sent = Counter.builder("firma.outbox.dispatch").tag("outcome", "sent").register(registry);
+        this.retried = Counter.builder("firma.outbox.dispatch").tag("outcome", "retry").register(registry);
+        this.failed = Counter.builder("firma.outbox.dispatch").tag("outcome", "failed").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Signature outbox disabled, requests are sent synchronously");
+            return;
+        }
+        workers = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()));
+        running = true;
+        loop = new Thread(this::run, "outbox-dispatcher");
+        loop.setDaemon(true);
+        loop.start();
+        log.info("Outbox dispatcher started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (loop != null) {
+            loop.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                drain();
+                outbox.awaitWork(properties.getPollInterval());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox drain failed", e);
+                sleepQuietly(properties.getPollInterval());
+            }
+        }
+    }
+
+    /**
+     * Start a lane for every tenant whose oldest entry is due and that has none running.
+     * Tenants are picked by their own head, so one tenant's backlog cannot starve the others,
+     * and the pass does not wait for the lanes: a tenant becoming active gets a lane right away.
+     */
+    void drain() {
+        List<OutboxEntry> heads = repository.findDueTenantHeads(
+                ACTIVE, Instant.now(), PageRequest.of(0, properties.getBatchSize()));
+        for (OutboxEntry head : heads) {
+            if (activeLanes.add(head.getTenant())) {
+                submitLane(head.getTenant());
+            }
+        }
+        updateGauges();
+    }
+
+    private void submitLane(String tenant) {
+        try {
+            workers.execute(() -> runLane(tenant));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            activeLanes.remove(tenant);
+        }
+    }
+
+    /**
+     * Send the tenant's next entry, then queue the lane again behind the other tenants' lanes
+     */
+    private void runLane(String tenant) {
+        boolean more = false;
+        try {
+            more = running && dispatchNext(tenant);
+        } catch (Exception e) {
+            log.error("Outbox lane of tenant {} failed", tenant, e);
+        }
+        if (more) {
+            submitLane(tenant);
+            return;
+        }
+        activeLanes.remove(tenant);
+        // Entries queued while the lane was finishing were skipped by the last pass
+        outbox.wakeUp();
+    }
+
+    /**
+     * @return whether the tenant has more entries to send right away
+     */
+    private boolean dispatchNext(String tenant) {
+        List<OutboxEntry> head = repository.findByTenantAndStatusInOrderByIdAsc(tenant, ACTIVE, PageRequest.of(0, 1));
+        if (head.isEmpty()) {
+            return false;
+        }
+        OutboxEntry entry = head.get(0);
+        Instant now = Instant.now();
+        boolean claimedElsewhere = entry.getStatus() == OutboxStatus.IN_FLIGHT
+                && entry.getClaimedUntil() != null && entry.getClaimedUntil().isAfter(now);
+        boolean backingOff = entry.getNextAttemptAt() != null && entry.getNextAttemptAt().isAfter(now);
+        // Later entries of this tenant must not overtake one that is waiting
+        return !claimedElsewhere && !backingOff && dispatch(entry);
+    }
+
+    /**
+     * @return whether the tenant lane may proceed with its next entry
+     */
+    private boolean dispatch(OutboxEntry head) {
+        Instant now = Instant.now();
+        if (repository.claim(head.getId(), now, now.plus(properties.getClaimTimeout())) == 0) {
+            return false;
+        }
+        // Reloaded for the version the claim wrote, so a later takeover makes our writes fail
+        OutboxEntry entry = repository.findById(head.getId()).orElse(null);
+        if (entry == null) {
+            return false;
+        }
+
+        ApiResponse<FirmaResponse> response;
+        try {
+            FirmaRequest request = objectMapper.readValue(entry.getRequestJson(), FirmaRequest.class);
+            request.setContent(DocumentPayload.fromFile(Path.of(entry.getContentPath())));
+            response = firmaClient.createFirmaRequest(request);
+        } catch (Exception e) {
+            log.error("Dispatch of outbox entry {} failed", entry.getId(), e);
+            response = ApiResponse.error(e.getMessage());
+        }
+
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setClaimedUntil(null);
+
+        if (response != null && response.isSuccess()) {
+            entry.setStatus(OutboxStatus.SENT);
+            entry.setNextAttemptAt(null);
+            entry.setLastError(null);
+            entry.setUpstreamId(response.getData() != null ? response.getData().getId() : null);
+            entry.setResponseJson(writeResponse(response));
+            if (!finish(entry)) {
+                return false;
+            }
+            sent.increment();
+            log.info("Outbox entry {} sent as {} after {} attempt(s)",
+                    entry.getId(), entry.getUpstreamId(), entry.getAttempts());
+            if (response.getData() != null) {
+                eventPublisher.publishEvent(new FirmaObservedEvent(response.getData()));
+            }
+            outbox.complete(entry.getId(), response);
+            return true;
+        }
+
+        String error = response != null ? response.getError() : "Empty response from upstream";
+        entry.setLastError(truncate(error));
+
+        boolean rejected = isRejected(response);
+        if (rejected || entry.getAttempts() >= properties.getMaxAttempts()) {
+            entry.setStatus(OutboxStatus.FAILED);
+            entry.setNextAttemptAt(null);
+            if (!finish(entry)) {
+                return false;
+            }
+            failed.increment();
+            if (rejected) {
+                log.warn("Outbox entry {} rejected by upstream with status {}: {}",
+                        entry.getId(), response.getUpstreamStatus(), error);
+            } else {
+                log.error("Outbox entry {} failed permanently after {} attempts: {}",
+                        entry.getId(), entry.getAttempts(), error);
+            }
+            outbox.complete(entry.getId(), ApiResponse.error("Failed to create signature request: " + error));
+            // A dead entry must not block the rest of the tenant's queue
+            return true;
+        }
+
+        entry.setStatus(OutboxStatus.PENDING);
+        entry.setNextAttemptAt(Instant.now().plus(backoff(entry.getAttempts())));
+        if (!store(entry)) {
+            return false;
+        }
+        retried.increment();
+        log.warn("Outbox entry {} attempt {} failed, retrying at {}: {}",
+                entry.getId(), entry.getAttempts(), entry.getNextAttemptAt(), error);
+        return false;
+    }
+
+    /**
+     * Upstream refused the request itself: retrying the same payload cannot succeed.
+     * Timeouts and throttling (408, 429) are transient and retried like server errors.
+     */
+    private static boolean isRejected(ApiResponse<?> response) {
+        Integer status = response != null ? response.getUpstreamStatus() : null;
+        return status != null && status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+
+    private boolean finish(OutboxEntry entry) {
+        if (!store(entry)) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(Path.of(entry.getContentPath()));
+        } catch (IOException e) {
+            log.warn("Cannot delete spooled document {}", entry.getContentPath(), e);
+        }
+        return true;
+    }
+
+    /**
+     * Write the outcome unless the claim expired and another dispatcher took the entry over
+     */
+    private boolean store(OutboxEntry entry) {
+        try {
+            repository.save(entry);
+            return true;
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.warn("Outbox entry {} was taken over by another dispatcher, dropping this attempt", entry.getId());
+            return false;
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter, so a recovering upstream is not hit by every tenant at once
+     */
+    private Duration backoff(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long exponential = initial << Math.min(attempts - 1, 20);
+        long capped = Math.min(max, exponential);
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    private void updateGauges() {
+        depth.set(repository.countByStatusIn(ACTIVE));
+        oldestAgeSeconds.set(repository.findFirstByStatusInOrderByIdAsc(ACTIVE)
+                .map(entry -> Duration.between(entry.getCreatedAt(), Instant.now()).toSeconds())
+                .orElse(0L));
+    }
+
+    private String writeResponse(ApiResponse<FirmaResponse> response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (IOException e) {
+            log.warn("Cannot store upstream response", e);
+            return null;
+        }
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > 2000 ? value.substring(0, 2000) : value;
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.openapi.firma.service;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch over log-spaced buckets: every value falls in the
+ * bucket {@code ceil(log(v) / log(gamma))}, so any quantile is reported within
+ * the configured relative error. Fixed size, constant time add, mergeable.
+ * Not thread safe.
+ */
+final class QuantileSketch {
+
+    // 2% relative error over 1 second .. ~10 years takes ~480 buckets
+    static final double RELATIVE_ACCURACY = 0.02;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKETS = (int) Math.ceil(Math.log(10 * 365.25 * 24 * 3600) / LOG_GAMMA) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long zeroCount;
+
+    void add(double seconds) {
+        count++;
+        if (seconds < 1) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(seconds) / LOG_GAMMA);
+        counts[Math.min(index, BUCKETS - 1)]++;
+    }
+
+    void merge(QuantileSketch other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        zeroCount = 0;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * @return the quantile in seconds, or null without samples
+     */
+    Double quantile(double q) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) {
+            return 0.0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Midpoint of the bucket (gamma^(i-1), gamma^i] in relative terms
+                return 2 * Math.pow(GAMMA, i) / (GAMMA + 1);
+            }
+        }
+        return Math.pow(GAMMA, BUCKETS - 1);
+    }
+}
@@ -0,0 +1,199 @@
+package com.openapi.firma.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.config.OutboxProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.dto.OutboxStatusResponse;
+import com.openapi.firma.entity.OutboxEntry;
+import com.openapi.firma.entity.OutboxEntry.OutboxStatus;
+import com.openapi.firma.payload.DocumentPayload;
+import com.openapi.firma.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Durable queue of signature creation requests.
+ * A request is persisted (metadata in the database, document in the spool
+ * directory) before it is dispatched, so upstream outages and restarts do
+ * not lose it. {@link OutboxDispatcher} drains the queue.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SignatureOutbox {
+
+    private final OutboxRepository repository;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, CompletableFuture<ApiResponse<FirmaResponse>>> waiters = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private boolean signalled;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Persist the request and wake up the dispatcher
+     */
+    public OutboxEntry enqueue(String tenant, FirmaRequest request) throws IOException {
+        Path spoolDir = Path.of(properties.getSpoolDir());
+        Files.createDirectories(spoolDir);
+        Path contentFile = Files.createTempFile(spoolDir, "doc-", ".pdf");
+
+        DocumentPayload content = request.getContent();
+        String requestJson;
+        try {
+            content.copyTo(contentFile);
+            // The document is stored in the spool file, keep it out of the database row
+            request.setContent(null);
+            requestJson = objectMapper.writeValueAsString(request);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(contentFile);
+            throw e;
+        } finally {
+            request.setContent(content);
+        }
+
+        OutboxEntry entry = new OutboxEntry();
+        entry.setTenant(tenant);
+        entry.setStatus(OutboxStatus.PENDING);
+        entry.setRequestJson(requestJson);
+        entry.setContentPath(contentFile.toString());
+        entry.setCreatedAt(Instant.now());
+        entry = repository.save(entry);
+
+        CompletableFuture<ApiResponse<FirmaResponse>> waiter = new CompletableFuture<>();
+        waiters.put(entry.getId(), waiter);
+        // A dispatcher pass may already have finished the entry before the waiter existed
+        repository.findById(entry.getId())
+                .filter(stored -> stored.getStatus() == OutboxStatus.SENT || stored.getStatus() == OutboxStatus.FAILED)
+                .ifPresent(stored -> waiter.complete(toFinalResponse(stored)));
+        log.info("Queued signature request {} for tenant {} ({} bytes)", entry.getId(), tenant, content.size());
+        wakeUp();
+        return entry;
+    }
+
+    /**
+     * Wait for the dispatch outcome up to the configured timeout.
+     * If it is not known by then the entry stays queued and a response without data is returned.
+     */
+    public ApiResponse<FirmaResponse> awaitResult(OutboxEntry entry) {
+        CompletableFuture<ApiResponse<FirmaResponse>> waiter = waiters.get(entry.getId());
+        try {
+            if (waiter != null) {
+                return waiter.get(properties.getAwaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            log.info("Signature request {} not dispatched yet, answering as queued", entry.getId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Unexpected failure waiting for outbox entry {}", entry.getId(), e.getCause());
+        } finally {
+            waiters.remove(entry.getId());
+        }
+
+        // Finished meanwhile, or still queued
+        return repository.findById(entry.getId())
+                .map(this::toFinalResponse)
+                .orElseGet(() -> queuedResponse(entry.getId()));
+    }
+
+    /**
+     * Final response of a queued request, empty while it is still waiting to be dispatched
+     */
+    public Optional<ApiResponse<FirmaResponse>> findOutcome(Long id) {
+        return repository.findById(id)
+                .filter(entry -> entry.getStatus() == OutboxStatus.SENT || entry.getStatus() == OutboxStatus.FAILED)
+                .map(this::toFinalResponse);
+    }
+
+    public Optional<OutboxStatusResponse> findStatus(Long id) {
+        return repository.findById(id).map(entry -> OutboxStatusResponse.builder()
+                .id(entry.getId())
+                .tenant(entry.getTenant())
+                .status(entry.getStatus().name())
+                .attempts(entry.getAttempts())
+                .createdAt(entry.getCreatedAt())
+                .nextAttemptAt(entry.getNextAttemptAt())
+                .lastError(entry.getLastError())
+                .firma(readResponse(entry).map(ApiResponse::getData).orElse(null))
+                .build());
+    }
+
+    void complete(Long id, ApiResponse<FirmaResponse> result) {
+        CompletableFuture<ApiResponse<FirmaResponse>> waiter = waiters.get(id);
+        if (waiter != null) {
+            waiter.complete(result);
+        }
+    }
+
+    void wakeUp() {
+        synchronized (signal) {
+            signalled = true;
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * Block the dispatcher until new work is queued or the poll interval elapses
+     */
+    void awaitWork(Duration maxWait) throws InterruptedException {
+        synchronized (signal) {
+            if (!signalled) {
+                signal.wait(Math.max(1, maxWait.toMillis()));
+            }
+            signalled = false;
+        }
+    }
+
+    private ApiResponse<FirmaResponse> toFinalResponse(OutboxEntry entry) {
+        if (entry.getStatus() == OutboxStatus.SENT) {
+            return readResponse(entry).orElseGet(() -> queuedResponse(entry.getId()));
+        }
+        if (entry.getStatus() == OutboxStatus.FAILED) {
+            return ApiResponse.error("Failed to create signature request: " + entry.getLastError());
+        }
+        return queuedResponse(entry.getId());
+    }
+
+    private Optional<ApiResponse<FirmaResponse>> readResponse(OutboxEntry entry) {
+        if (entry.getResponseJson() == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(entry.getResponseJson(),
+                    new TypeReference<ApiResponse<FirmaResponse>>() {}));
+        } catch (IOException e) {
+            log.warn("Cannot read stored response of outbox entry {}", entry.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static ApiResponse<FirmaResponse> queuedResponse(Long id) {
+        return ApiResponse.<FirmaResponse>builder()
+                .success(true)
+                .message("Signature request accepted and queued for dispatch (outbox entry " + id + ")")
+                .outboxEntryId(id)
+                .build();
+    }
+}
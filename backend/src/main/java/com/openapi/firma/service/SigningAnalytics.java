@@ -0,0 +1,276 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.dto.AnalyticsResponse;
+import com.openapi.firma.dto.AnalyticsResponse.DocumentTypeStats;
+import com.openapi.firma.dto.AnalyticsResponse.HourlyRollup;
+import com.openapi.firma.dto.AnalyticsResponse.TimeToSign;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.dto.FirmaResponse.FirmaStatus;
+import com.openapi.firma.dto.FirmaResponse.MemberStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Live signing statistics, maintained from {@link FirmaTransitionEvent}s:
+ * requests per status, time-to-sign quantiles, outcomes per document type and
+ * hourly rollups. Every update and query touches a fixed amount of state, no
+ * stored request is ever scanned.
+ */
+@Slf4j
+@Service
+public class SigningAnalytics {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final Set<String> SIGNED = Set.of("signed", "finished", "completed");
+    private static final Set<FirmaStatus> OUTCOMES =
+            EnumSet.of(FirmaStatus.finished, FirmaStatus.refused, FirmaStatus.expired);
+    private static final String OTHER_TYPE = "other";
+
+    private final int maxDocumentTypes;
+    private final HourBucket[] hours;
+
+    private final long[] statusCounts = new long[FirmaStatus.values().length];
+    private final QuantileSketch timeToSign = new QuantileSketch();
+    private final Map<String, TypeStats> documentTypes = new HashMap<>();
+    private long trackedRequests;
+
+    public SigningAnalytics(@Value("${firma.analytics.retention-hours:168}") int retentionHours,
+                            @Value("${firma.analytics.max-document-types:500}") int maxDocumentTypes) {
+        this.maxDocumentTypes = maxDocumentTypes;
+        this.hours = new HourBucket[Math.max(1, retentionHours)];
+        for (int i = 0; i < hours.length; i++) {
+            hours[i] = new HourBucket();
+        }
+    }
+
+    @EventListener
+    public synchronized void onTransition(FirmaTransitionEvent event) {
+        FirmaResponse previous = event.previous();
+        FirmaResponse current = event.current();
+        FirmaStatus before = previous != null ? previous.getStatus() : null;
+        FirmaStatus after = current.getStatus();
+
+        if (previous == null) {
+            trackedRequests++;
+        }
+        if (before != after) {
+            if (before != null) {
+                statusCounts[before.ordinal()]--;
+            }
+            if (after != null) {
+                statusCounts[after.ordinal()]++;
+                HourBucket bucket = bucket(currentHour());
+                if (bucket != null) {
+                    bucket.transitions[after.ordinal()]++;
+                }
+                if (OUTCOMES.contains(after) && !OUTCOMES.contains(before)) {
+                    typeStats(current).outcomes[after.ordinal()]++;
+                }
+            }
+        }
+
+        recordSignatures(previous, current);
+    }
+
+    /**
+     * Current figures, with hourly rollups for the last {@code windowHours} hours
+     */
+    public synchronized AnalyticsResponse snapshot(int windowHours) {
+        int window = Math.max(1, Math.min(windowHours, hours.length));
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (FirmaStatus status : FirmaStatus.values()) {
+            counts.put(status.name(), statusCounts[status.ordinal()]);
+        }
+
+        Map<String, DocumentTypeStats> types = new TreeMap<>();
+        documentTypes.forEach((type, stats) -> types.put(type, stats.toDto()));
+
+        long now = currentHour();
+        List<HourlyRollup> hourly = new ArrayList<>(window);
+        long[] windowTransitions = new long[FirmaStatus.values().length];
+        QuantileSketch windowSketch = new QuantileSketch();
+        for (long hour = now - window + 1; hour <= now; hour++) {
+            HourBucket bucket = hours[(int) Math.floorMod(hour, (long) hours.length)];
+            if (bucket.hour != hour) {
+                hourly.add(rollup(hour, new long[windowTransitions.length], new QuantileSketch()));
+                continue;
+            }
+            for (int i = 0; i < windowTransitions.length; i++) {
+                windowTransitions[i] += bucket.transitions[i];
+            }
+            windowSketch.merge(bucket.timeToSign);
+            hourly.add(rollup(hour, bucket.transitions, bucket.timeToSign));
+        }
+
+        return AnalyticsResponse.builder()
+                .generatedAt(LocalDateTime.now())
+                .trackedRequests(trackedRequests)
+                .statusCounts(counts)
+                .timeToSign(timeToSign(timeToSign))
+                .documentTypes(types)
+                .windowHours(window)
+                .window(rollup(now - window + 1, windowTransitions, windowSketch))
+                .hourly(hourly)
+                .build();
+    }
+
+    private void recordSignatures(FirmaResponse previous, FirmaResponse current) {
+        if (current.getMembers() == null) {
+            return;
+        }
+        Map<String, String> statusBefore = new HashMap<>();
+        if (previous != null && previous.getMembers() != null) {
+            for (MemberStatus member : previous.getMembers()) {
+                statusBefore.put(memberKey(member), member.getStatus());
+            }
+        }
+
+        for (MemberStatus member : current.getMembers()) {
+            if (!isSigned(member.getStatus()) || isSigned(statusBefore.get(memberKey(member)))) {
+                continue;
+            }
+            if (member.getCreatedAt() == null || member.getUpdatedAt() == null) {
+                continue;
+            }
+            long millis = Duration.between(member.getCreatedAt(), member.getUpdatedAt()).toMillis();
+            if (millis < 0) {
+                continue;
+            }
+            double seconds = millis / 1000.0;
+            timeToSign.add(seconds);
+            typeStats(current).timeToSign.add(seconds);
+            // Signatures are bucketed by when they happened, also when observed late
+            HourBucket bucket = bucket(member.getUpdatedAt().atZone(ZONE).toEpochSecond() / 3600);
+            if (bucket != null) {
+                bucket.timeToSign.add(seconds);
+            }
+        }
+    }
+
+    private TypeStats typeStats(FirmaResponse firma) {
+        String type = documentType(firma);
+        TypeStats stats = documentTypes.get(type);
+        if (stats == null) {
+            if (documentTypes.size() >= maxDocumentTypes) {
+                type = OTHER_TYPE;
+            }
+            stats = documentTypes.computeIfAbsent(type, t -> new TypeStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Requests carry no document type: use the title without numbers, dates and punctuation,
+     * so "Contratto 2024/17" and "Contratto 2024/18" count as one type
+     */
+    static String documentType(FirmaResponse firma) {
+        String title = firma.getTitle() != null && !firma.getTitle().isBlank() ? firma.getTitle() : firma.getFilename();
+        if (title == null) {
+            return "untitled";
+        }
+        String type = title.toLowerCase(Locale.ROOT)
+                .replaceAll("\\.pdf$", "")
+                .replaceAll("[^\\p{L}]+", " ")
+                .trim();
+        if (type.isEmpty()) {
+            return "untitled";
+        }
+        return type.length() > 60 ? type.substring(0, 60).trim() : type;
+    }
+
+    private HourBucket bucket(long hour) {
+        long now = currentHour();
+        if (hour > now || hour <= now - hours.length) {
+            return null;
+        }
+        HourBucket bucket = hours[(int) Math.floorMod(hour, (long) hours.length)];
+        if (bucket.hour != hour) {
+            // The slot still holds an expired hour: reuse it
+            bucket.reset(hour);
+        }
+        return bucket;
+    }
+
+    private static long currentHour() {
+        return Instant.now().getEpochSecond() / 3600;
+    }
+
+    private static String memberKey(MemberStatus member) {
+        return member.getEmail() != null ? member.getEmail().toLowerCase(Locale.ROOT) : member.getPhone();
+    }
+
+    private static boolean isSigned(String memberStatus) {
+        return memberStatus != null && SIGNED.contains(memberStatus.toLowerCase(Locale.ROOT));
+    }
+
+    private static HourlyRollup rollup(long hour, long[] transitions, QuantileSketch sketch) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (FirmaStatus status : FirmaStatus.values()) {
+            if (transitions[status.ordinal()] > 0) {
+                byStatus.put(status.name(), transitions[status.ordinal()]);
+            }
+        }
+        return HourlyRollup.builder()
+                .from(LocalDateTime.ofInstant(Instant.ofEpochSecond(hour * 3600), ZONE))
+                .transitions(byStatus)
+                .timeToSign(timeToSign(sketch))
+                .build();
+    }
+
+    private static TimeToSign timeToSign(QuantileSketch sketch) {
+        return TimeToSign.builder()
+                .samples(sketch.count())
+                .medianSeconds(sketch.quantile(0.5))
+                .p95Seconds(sketch.quantile(0.95))
+                .build();
+    }
+
+    private static class HourBucket {
+        private long hour = Long.MIN_VALUE;
+        private final long[] transitions = new long[FirmaStatus.values().length];
+        private final QuantileSketch timeToSign = new QuantileSketch();
+
+        void reset(long hour) {
+            this.hour = hour;
+            Arrays.fill(transitions, 0);
+            timeToSign.clear();
+        }
+    }
+
+    private static class TypeStats {
+        private final long[] outcomes = new long[FirmaStatus.values().length];
+        private final QuantileSketch timeToSign = new QuantileSketch();
+
+        DocumentTypeStats toDto() {
+            long finished = outcomes[FirmaStatus.finished.ordinal()];
+            long refused = outcomes[FirmaStatus.refused.ordinal()];
+            long expired = outcomes[FirmaStatus.expired.ordinal()];
+            long total = finished + refused + expired;
+            return DocumentTypeStats.builder()
+                    .finished(finished)
+                    .refused(refused)
+                    .expired(expired)
+                    .refusalRate(total > 0 ? (double) refused / total : null)
+                    .timeToSign(SigningAnalytics.timeToSign(timeToSign))
+                    .build();
+        }
+    }
+}
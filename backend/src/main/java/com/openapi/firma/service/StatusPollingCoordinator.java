@@ -0,0 +1,263 @@
+package com.openapi.firma.service;
+
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.client.UpstreamLane;
+import com.openapi.firma.client.UpstreamScheduler;
+import com.openapi.firma.config.PollingProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.dto.FirmaResponse.FirmaStatus;
+import com.openapi.firma.entity.ClusterNode;
+import com.openapi.firma.entity.StatusLease;
+import com.openapi.firma.repository.ClusterNodeRepository;
+import com.openapi.firma.repository.StatusLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits upstream status polling of in-flight signature requests across the
+ * replicas sharing the database. Every request has a lease row; a node polls
+ * only the requests it holds a live lease on, so each request is polled once
+ * per interval however many replicas run.
+ * <p>
+ * Each tick a node heartbeats, renews its leases, and moves towards its fair
+ * share (leases / live nodes): it releases the surplus when nodes join and
+ * takes over unowned or expired leases when nodes leave. Lease times come from
+ * the node clocks, so the lease duration must be well above the clock skew.
+ * <p>
+ * Ticks run on their own thread, so slow upstream polls never delay the other
+ * scheduled jobs. Polling stops at the batch time or when the leases renewed at
+ * the start of the tick expire, whichever comes first, so a node never polls a
+ * request another node may already have taken over.
+ */
+@Slf4j
+@Service
+public class StatusPollingCoordinator {
+
+    private static final Set<FirmaStatus> IN_FLIGHT = EnumSet.of(FirmaStatus.created, FirmaStatus.started);
+
+    private final StatusLeaseRepository leases;
+    private final ClusterNodeRepository nodes;
+    private final FirmaClient firmaClient;
+    private final PollingProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final Instant startedAt = Instant.now();
+
+    private ScheduledExecutorService ticker;
+
+    private final AtomicLong owned = new AtomicLong();
+    private final AtomicLong liveNodes = new AtomicLong();
+    private final Counter polls;
+    private final Counter acquired;
+    private final Counter released;
+
+    public StatusPollingCoordinator(StatusLeaseRepository leases, ClusterNodeRepository nodes, FirmaClient firmaClient,
+                                    PollingProperties properties, ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry registry) {
+        this.leases = leases;
+        this.nodes = nodes;
+        this.firmaClient = firmaClient;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isBlank()
+                ? properties.getNodeId() : generateNodeId();
+
+        Gauge.builder("firma.polling.leases.owned", owned, AtomicLong::get)
+                .description("Signature requests whose status this node polls")
+                .register(registry);
+        Gauge.builder("firma.polling.nodes", liveNodes, AtomicLong::get)
+                .description("Live nodes sharing the status polling")
+                .register(registry);
+        this.polls = Counter.builder("firma.polling.upstream.calls").register(registry);
+        this.acquired = Counter.builder("firma.polling.leases.moved").tag("direction", "acquired").register(registry);
+        this.released = Counter.builder("firma.polling.leases.moved").tag("direction", "released").register(registry);
+    }
+
+    /**
+     * Track new in-flight requests and stop tracking finished ones
+     */
+    @EventListener
+    public void onTransition(FirmaTransitionEvent event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        FirmaResponse firma = event.current();
+        if (!IN_FLIGHT.contains(firma.getStatus())) {
+            if (event.previous() != null && IN_FLIGHT.contains(event.previous().getStatus())) {
+                leases.deleteByFirmaId(firma.getId());
+            }
+            return;
+        }
+        if (event.previous() != null && IN_FLIGHT.contains(event.previous().getStatus())) {
+            return;
+        }
+        if (leases.existsById(firma.getId())) {
+            return;
+        }
+        StatusLease lease = new StatusLease();
+        lease.setFirmaId(firma.getId());
+        lease.setCreatedAt(Instant.now());
+        lease.setNextPollAt(Instant.now().plus(properties.getInterval()));
+        try {
+            leases.save(lease);
+        } catch (DataIntegrityViolationException e) {
+            // Another node registered the same request first
+            log.debug("Lease for {} already registered", firma.getId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-polling");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::tick, period, period, TimeUnit.MILLISECONDS);
+        log.info("Node {} joined status polling", nodeId);
+    }
+
+    private void tick() {
+        try {
+            Instant now = Instant.now();
+            heartbeat(now);
+            Instant leaseUntil = now.plus(properties.getLeaseDuration());
+            leases.renew(nodeId, now, leaseUntil);
+            rebalance(now);
+            Instant batchEnd = now.plus(properties.getBatchTime());
+            pollDue(now, batchEnd.isBefore(leaseUntil) ? batchEnd : leaseUntil);
+        } catch (Exception e) {
+            log.error("Status polling tick failed on node {}", nodeId, e);
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdownNow();
+        try {
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            // Hand over immediately instead of letting the leases expire
+            int count = leases.releaseAll(nodeId);
+            nodes.deleteById(nodeId);
+            log.info("Node {} left status polling, released {} leases", nodeId, count);
+        } catch (Exception e) {
+            log.warn("Cannot release leases of node {}, they expire in {}", nodeId, properties.getLeaseDuration());
+        }
+    }
+
+    private void heartbeat(Instant now) {
+        ClusterNode node = new ClusterNode();
+        node.setNodeId(nodeId);
+        node.setStartedAt(startedAt);
+        node.setHeartbeatAt(now);
+        nodes.save(node);
+
+        Instant deadline = now.minus(properties.getNodeTimeout());
+        nodes.deleteDead(deadline);
+        liveNodes.set(Math.max(1, nodes.countByHeartbeatAtAfter(deadline)));
+    }
+
+    private void rebalance(Instant now) {
+        long total = leases.count();
+        long fairShare = (total + liveNodes.get() - 1) / liveNodes.get();
+        long mine = leases.countByOwnerNodeAndLeaseUntilAfter(nodeId, now);
+
+        if (mine > fairShare) {
+            int surplus = (int) Math.min(mine - fairShare, properties.getBatchSize());
+            for (StatusLease lease : leases.findOwnedLatestFirst(nodeId, now, PageRequest.of(0, surplus))) {
+                mine -= leases.release(lease.getFirmaId(), nodeId);
+                released.increment();
+            }
+        } else if (mine < fairShare) {
+            int missing = (int) Math.min(fairShare - mine, properties.getBatchSize());
+            Instant until = now.plus(properties.getLeaseDuration());
+            for (StatusLease lease : leases.findAcquirable(now, PageRequest.of(0, missing))) {
+                if (leases.acquire(lease.getFirmaId(), nodeId, now, until) == 1) {
+                    mine++;
+                    acquired.increment();
+                }
+            }
+        }
+        owned.set(mine);
+    }
+
+    /**
+     * Poll the due requests of this node until {@code deadline}; the rest wait for the next tick
+     */
+    private void pollDue(Instant now, Instant deadline) {
+        for (StatusLease lease : leases.findDue(nodeId, now, PageRequest.of(0, properties.getBatchSize()))) {
+            if (!Instant.now().isBefore(deadline) || Thread.currentThread().isInterrupted()) {
+                log.debug("Status polling batch of node {} stopped at its deadline", nodeId);
+                return;
+            }
+            ApiResponse<FirmaResponse> response;
+            try (UpstreamScheduler.LaneScope lane = UpstreamScheduler.inLane(UpstreamLane.BULK)) {
+                response = firmaClient.getFirmaRequestById(lease.getFirmaId());
+                polls.increment();
+            } catch (Exception e) {
+                log.warn("Status poll of {} failed: {}", lease.getFirmaId(), e.getMessage());
+                response = null;
+            }
+
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                markPolled(lease);
+                continue;
+            }
+            if (IN_FLIGHT.contains(response.getData().getStatus())) {
+                markPolled(lease);
+            } else {
+                leases.deleteByFirmaId(lease.getFirmaId());
+            }
+            eventPublisher.publishEvent(new FirmaObservedEvent(response.getData()));
+        }
+    }
+
+    private void markPolled(StatusLease lease) {
+        Instant polledAt = Instant.now();
+        // No-op if the lease expired during the poll and moved to another node
+        leases.markPolled(lease.getFirmaId(), nodeId, polledAt, polledAt.plus(properties.getInterval()));
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid()
+                + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
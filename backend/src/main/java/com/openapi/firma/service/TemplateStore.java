@@ -0,0 +1,361 @@
+package com.openapi.firma.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.config.PayloadProperties;
+import com.openapi.firma.config.TemplateProperties;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.TemplateFirmaRequest;
+import com.openapi.firma.dto.TemplateRequest;
+import com.openapi.firma.dto.TemplateResponse;
+import com.openapi.firma.payload.DocumentPayload;
+import com.openapi.firma.validation.PdfInfo;
+import com.openapi.firma.validation.PdfPreflightValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reusable documents: a PDF uploaded once with its default signature layout,
+ * referenced by id when creating signature requests.
+ * <p>
+ * Every template is a {@code <id>.pdf} and {@code <id>.json} pair in the template
+ * directory. Recently used templates are cached with their scanned {@link PdfInfo}
+ * and, up to the payload memory threshold, their content, so a request on a hot
+ * template neither reads nor scans the document again.
+ */
+@Slf4j
+@Service
+public class TemplateStore {
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final TemplateProperties properties;
+    private final PayloadProperties payloadProperties;
+    private final PdfPreflightValidator preflightValidator;
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+
+    // Access ordered: iteration starts at the least recently used template
+    private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public TemplateStore(TemplateProperties properties, PayloadProperties payloadProperties,
+                         PdfPreflightValidator preflightValidator, ObjectMapper objectMapper,
+                         MeterRegistry registry) {
+        this.properties = properties;
+        this.payloadProperties = payloadProperties;
+        this.preflightValidator = preflightValidator;
+        this.objectMapper = objectMapper;
+        this.dir = Path.of(properties.getDir());
+
+        this.hits = Counter.builder("firma.templates.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("firma.templates.cache").tag("result", "miss").register(registry);
+        Gauge.builder("firma.templates.cache.bytes", this, TemplateStore::cachedBytes)
+                .description("Template documents held in memory")
+                .register(registry);
+    }
+
+    /**
+     * Scan and store a new template. The document and the layout are checked once here,
+     * requests on the template only check their own sign positions.
+     */
+    public TemplateResponse create(TemplateRequest request) throws IOException {
+        DocumentPayload content = request.getContent();
+        PdfInfo info = preflightValidator.inspect(content);
+        preflightValidator.validateSignPositions(info, layoutAsMembers(request.getLayout()));
+
+        TemplateResponse template = TemplateResponse.builder()
+                .id(UUID.randomUUID().toString())
+                .name(request.getName())
+                .description(request.getDescription())
+                .filename(request.getFilename() != null && !request.getFilename().isBlank()
+                        ? request.getFilename() : request.getName() + ".pdf")
+                .document(info)
+                .sha256(HexFormat.of().formatHex(content.sha256()))
+                .layout(request.getLayout())
+                .createdAt(Instant.now())
+                .build();
+
+        Files.createDirectories(dir);
+        // The metadata file marks the template as complete, write it last
+        Path pdf = contentFile(template.getId());
+        Path staged = Files.createTempFile(dir, "upload-", ".tmp");
+        try {
+            content.copyTo(staged);
+            Files.move(staged, pdf, StandardCopyOption.ATOMIC_MOVE);
+            staged = Files.createTempFile(dir, "upload-", ".tmp");
+            objectMapper.writeValue(staged.toFile(), template);
+            Files.move(staged, metadataFile(template.getId()), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            Files.deleteIfExists(pdf);
+            throw e;
+        }
+
+        cache(template.getId(), cachedOf(template));
+        log.info("Stored template {} \"{}\": {} bytes, {} pages",
+                template.getId(), template.getName(), info.getSize(), info.getPageCount());
+        return template;
+    }
+
+    public Optional<TemplateResponse> find(String id) throws IOException {
+        return load(id).map(Cached::template);
+    }
+
+    /**
+     * All stored templates, newest first. Reads the metadata files, not the documents.
+     */
+    public List<TemplateResponse> list() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<TemplateResponse> templates = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".json")) {
+                    continue;
+                }
+                String id = name.substring(0, name.length() - ".json".length());
+                Cached cached = cached(id);
+                if (cached != null) {
+                    templates.add(cached.template());
+                } else if (ID.matcher(id).matches()) {
+                    readMetadata(id).ifPresent(templates::add);
+                }
+            }
+        }
+        templates.sort(Comparator.comparing(TemplateResponse::getCreatedAt).reversed());
+        return templates;
+    }
+
+    /**
+     * Signature requests already created from the template are not affected
+     */
+    public boolean delete(String id) throws IOException {
+        if (!ID.matcher(id).matches()) {
+            return false;
+        }
+        synchronized (cache) {
+            Cached removed = cache.remove(id);
+            if (removed != null) {
+                cachedBytes -= removed.weight();
+            }
+        }
+        boolean existed = Files.deleteIfExists(metadataFile(id));
+        Files.deleteIfExists(contentFile(id));
+        if (existed) {
+            log.info("Deleted template {}", id);
+        }
+        return existed;
+    }
+
+    /**
+     * Build the full signature request: the template content, and for every member without
+     * signs the positions of its layout slot
+     *
+     * @throws IllegalArgumentException if a member has no signs and no layout slot
+     */
+    public FirmaRequest instantiate(TemplateResponse template, TemplateFirmaRequest request) throws IOException {
+        List<TemplateRequest.SignerLayout> layout = template.getLayout() != null ? template.getLayout() : List.of();
+        List<FirmaRequest.Member> members = new ArrayList<>(request.getMembers().size());
+        for (int i = 0; i < request.getMembers().size(); i++) {
+            FirmaRequest.Member member = request.getMembers().get(i);
+            if (member.getSigns() == null || member.getSigns().isEmpty()) {
+                if (i >= layout.size() || layout.get(i).getSigns() == null || layout.get(i).getSigns().isEmpty()) {
+                    throw new IllegalArgumentException(String.format(
+                            "Member %d has no signs and template %s defines no positions for it",
+                            i + 1, template.getId()));
+                }
+                member = FirmaRequest.Member.builder()
+                        .firstname(member.getFirstname())
+                        .lastname(member.getLastname())
+                        .email(member.getEmail())
+                        .phone(member.getPhone())
+                        .signs(copyOf(layout.get(i).getSigns()))
+                        .build();
+            }
+            members.add(member);
+        }
+
+        return FirmaRequest.builder()
+                .title(request.getTitle() != null ? request.getTitle() : template.getName())
+                .description(request.getDescription() != null ? request.getDescription() : template.getDescription())
+                .ui(request.getUi())
+                .filename(request.getFilename() != null ? request.getFilename() : template.getFilename())
+                .content(content(template.getId()))
+                .members(members)
+                .callback(request.getCallback())
+                .build();
+    }
+
+    /**
+     * Cached content is shared, larger documents are streamed from the template file
+     */
+    private DocumentPayload content(String id) throws IOException {
+        Cached cached = load(id).orElseThrow(() -> new NoSuchFileException(contentFile(id).toString()));
+        DocumentPayload content = cached.content() != null
+                ? DocumentPayload.fromBytes(cached.content())
+                : DocumentPayload.fromFile(contentFile(id));
+        return content.withSha256(cached.sha256());
+    }
+
+    private Optional<Cached> load(String id) throws IOException {
+        if (!ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Cached cached = cached(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        // Read outside the lock; two concurrent misses just load the same template twice
+        Optional<TemplateResponse> template = readMetadata(id);
+        if (template.isEmpty()) {
+            return Optional.empty();
+        }
+        cached = cachedOf(template.get());
+        cache(id, cached);
+        return Optional.of(cached);
+    }
+
+    private Cached cached(String id) {
+        synchronized (cache) {
+            return cache.get(id);
+        }
+    }
+
+    private void cache(String id, Cached entry) {
+        long maxBytes = properties.getCacheMaxSize().toBytes();
+        if (entry.weight() > maxBytes) {
+            entry = new Cached(entry.template(), null, entry.sha256());
+        }
+        synchronized (cache) {
+            Cached previous = cache.put(id, entry);
+            cachedBytes += entry.weight() - (previous != null ? previous.weight() : 0);
+
+            Iterator<Map.Entry<String, Cached>> eldest = cache.entrySet().iterator();
+            while ((cache.size() > properties.getCacheMaxEntries() || cachedBytes > maxBytes) && eldest.hasNext()) {
+                Map.Entry<String, Cached> evicted = eldest.next();
+                if (evicted.getKey().equals(id)) {
+                    continue;
+                }
+                cachedBytes -= evicted.getValue().weight();
+                eldest.remove();
+            }
+        }
+    }
+
+    private long cachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    private Optional<TemplateResponse> readMetadata(String id) throws IOException {
+        try (InputStream in = Files.newInputStream(metadataFile(id))) {
+            return Optional.of(objectMapper.readValue(in, TemplateResponse.class));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Cached cachedOf(TemplateResponse template) throws IOException {
+        byte[] content = readCacheable(template.getId());
+        byte[] sha256;
+        if (template.getSha256() != null) {
+            sha256 = HexFormat.of().parseHex(template.getSha256());
+        } else {
+            // Stored before digests were recorded: hash it once per load, not once per request
+            try (DocumentPayload payload = content != null
+                    ? DocumentPayload.fromBytes(content) : DocumentPayload.fromFile(contentFile(template.getId()))) {
+                sha256 = payload.sha256();
+            }
+        }
+        return new Cached(template, content, sha256);
+    }
+
+    /**
+     * @return the document bytes, or null if the document is too large to keep on the heap
+     */
+    private byte[] readCacheable(String id) throws IOException {
+        Path file = contentFile(id);
+        if (Files.size(file) > payloadProperties.getMemoryThreshold().toBytes()) {
+            return null;
+        }
+        return Files.readAllBytes(file);
+    }
+
+    /**
+     * Each request gets its own positions: the client adjusts them before sending,
+     * which must not change the cached template for later requests
+     */
+    private static List<FirmaRequest.SignPosition> copyOf(List<FirmaRequest.SignPosition> signs) {
+        List<FirmaRequest.SignPosition> copy = new ArrayList<>(signs.size());
+        for (FirmaRequest.SignPosition sign : signs) {
+            copy.add(FirmaRequest.SignPosition.builder()
+                    .page(sign.getPage())
+                    .position(sign.getPosition())
+                    .build());
+        }
+        return copy;
+    }
+
+    /**
+     * Layout slots checked against the document like the members of a request
+     */
+    private static List<FirmaRequest.Member> layoutAsMembers(List<TemplateRequest.SignerLayout> layout) {
+        if (layout == null) {
+            return List.of();
+        }
+        List<FirmaRequest.Member> slots = new ArrayList<>(layout.size());
+        for (int i = 0; i < layout.size(); i++) {
+            TemplateRequest.SignerLayout slot = layout.get(i);
+            slots.add(FirmaRequest.Member.builder()
+                    .email(slot.getRole() != null ? slot.getRole() : "slot " + (i + 1))
+                    .signs(slot.getSigns())
+                    .build());
+        }
+        return slots;
+    }
+
+    private Path contentFile(String id) {
+        return dir.resolve(id + ".pdf");
+    }
+
+    private Path metadataFile(String id) {
+        return dir.resolve(id + ".json");
+    }
+
+    private record Cached(TemplateResponse template, byte[] content, byte[] sha256) {
+        long weight() {
+            return content != null ? content.length : 0;
+        }
+    }
+}
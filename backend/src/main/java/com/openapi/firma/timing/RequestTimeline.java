@@ -0,0 +1,116 @@
+package com.openapi.firma.timing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Phase timeline of one sampled request, bound to the request thread.
+ * When the request is not sampled every call is a thread-local lookup
+ * returning a no-op, so the hot path can stay instrumented.
+ * <p>
+ * Two kinds of phases: {@link #checkpoint} closes the stretch of time since
+ * the previous checkpoint (dispatch, parse, validate, handler, serialize),
+ * {@link #phase} measures a nested section (preflight, upstream, ...).
+ */
+public final class RequestTimeline {
+
+    private static final ThreadLocal<RequestTimeline> CURRENT = new ThreadLocal<>();
+    private static final Span NOOP = () -> { };
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>(16);
+    private long lastCheckpoint = startNanos;
+
+    /**
+     * Start measuring a nested section, close the span to record it
+     */
+    public static Span phase(String name) {
+        RequestTimeline timeline = CURRENT.get();
+        if (timeline == null) {
+            return NOOP;
+        }
+        long start = System.nanoTime();
+        return () -> timeline.add(name, start, System.nanoTime());
+    }
+
+    /**
+     * Record the time since the previous checkpoint under {@code name}
+     */
+    public static void checkpoint(String name) {
+        RequestTimeline timeline = CURRENT.get();
+        if (timeline != null) {
+            timeline.checkpointAt(name, System.nanoTime());
+        }
+    }
+
+    public static boolean isSampled() {
+        return CURRENT.get() != null;
+    }
+
+    static RequestTimeline current() {
+        return CURRENT.get();
+    }
+
+    static RequestTimeline begin() {
+        RequestTimeline timeline = new RequestTimeline();
+        CURRENT.set(timeline);
+        return timeline;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void checkpointAt(String name, long nanos) {
+        add(name, lastCheckpoint, nanos);
+        lastCheckpoint = nanos;
+    }
+
+    Instant startedAt() {
+        return startedAt;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    List<Phase> phases() {
+        return phases;
+    }
+
+    /**
+     * Server-Timing header value for the phases recorded so far
+     */
+    String serverTiming() {
+        StringBuilder header = new StringBuilder(phases.size() * 24);
+        for (Phase phase : phases) {
+            appendMetric(header, phase.name(), phase.durationNanos());
+        }
+        appendMetric(header, "total", elapsedNanos());
+        return header.toString();
+    }
+
+    private void add(String name, long start, long end) {
+        phases.add(new Phase(name, start - startNanos, end - start));
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(Math.round(nanos / 10_000.0) / 100.0);
+    }
+
+    /**
+     * Measured section; closing it records the duration
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    record Phase(String name, long offsetNanos, long durationNanos) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.openapi.firma.timing;
+
+import com.openapi.firma.config.TimingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides per request whether it is sampled and, if so, opens its
+ * {@link RequestTimeline}. Runs first so that time spent queueing in the
+ * other filters (admission control) is part of the timeline.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TimingFilter extends OncePerRequestFilter {
+
+    private final TimingProperties properties;
+    private final TimingRecorder recorder;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (!isSampled(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestTimeline timeline = RequestTimeline.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Everything after the handler returned: body serialization and the flush
+            timeline.checkpointAt("serialize", System.nanoTime());
+            RequestTimeline.end();
+            recorder.record(timeline, request.getMethod(), request.getRequestURI(), response.getStatus());
+        }
+    }
+
+    private boolean isSampled(HttpServletRequest request) {
+        return request.getHeader(properties.getForceHeader()) != null
+                || ThreadLocalRandom.current().nextDouble() < properties.getSampleRate();
+    }
+}
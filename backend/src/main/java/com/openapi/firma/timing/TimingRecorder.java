@@ -0,0 +1,71 @@
+package com.openapi.firma.timing;
+
+import com.openapi.firma.config.TimingProperties;
+import com.openapi.firma.dto.RequestTimingResponse;
+import com.openapi.firma.dto.RequestTimingResponse.PhaseTiming;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the most recent slow sampled requests
+ */
+@Component
+public class TimingRecorder {
+
+    private final long slowThresholdNanos;
+    private final RequestTimingResponse[] ring;
+    private int next;
+    private int size;
+
+    public TimingRecorder(TimingProperties properties) {
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.ring = new RequestTimingResponse[Math.max(1, properties.getBufferSize())];
+    }
+
+    void record(RequestTimeline timeline, String method, String path, int status) {
+        long total = timeline.elapsedNanos();
+        if (total < slowThresholdNanos) {
+            return;
+        }
+        List<PhaseTiming> phases = new ArrayList<>(timeline.phases().size());
+        for (RequestTimeline.Phase phase : timeline.phases()) {
+            phases.add(PhaseTiming.builder()
+                    .name(phase.name())
+                    .offsetMillis(millis(phase.offsetNanos()))
+                    .durationMillis(millis(phase.durationNanos()))
+                    .build());
+        }
+        RequestTimingResponse timing = RequestTimingResponse.builder()
+                .startedAt(timeline.startedAt())
+                .method(method)
+                .path(path)
+                .status(status)
+                .totalMillis(millis(total))
+                .phases(phases)
+                .build();
+
+        synchronized (this) {
+            ring[next] = timing;
+            next = (next + 1) % ring.length;
+            size = Math.min(size + 1, ring.length);
+        }
+    }
+
+    /**
+     * Most recent first
+     */
+    public synchronized List<RequestTimingResponse> recent(int limit) {
+        int count = Math.min(Math.max(0, limit), size);
+        List<RequestTimingResponse> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            result.add(ring[Math.floorMod(next - i, ring.length)]);
+        }
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
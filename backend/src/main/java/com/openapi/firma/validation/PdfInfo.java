@@ -0,0 +1,31 @@
+package com.openapi.firma.validation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Structural facts collected while scanning a PDF.
+ * A page count or page size of 0 means it could not be determined
+ * (e.g. page objects packed inside compressed object streams).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PdfInfo {
+    private long size;
+    private int pageCount;
+    private double maxPageWidth;
+    private double maxPageHeight;
+
+    @JsonIgnore
+    public boolean isPageCountKnown() {
+        return pageCount > 0;
+    }
+
+    @JsonIgnore
+    public boolean isPageSizeKnown() {
+        return maxPageWidth > 0 && maxPageHeight > 0;
+    }
+}
@@ -0,0 +1,238 @@
+package com.openapi.firma.validation;
+
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.exception.PdfValidationException;
+import com.openapi.firma.payload.DocumentPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local pre-flight checks on the document before it is sent upstream.
+ * The PDF is decoded and scanned in fixed-size windows, so a bad request
+ * is rejected without ever materializing the whole file.
+ */
+@Slf4j
+@Component
+public class PdfPreflightValidator {
+
+    private static final int WINDOW_SIZE = 64 * 1024;
+    // Must be longer than any token matched below so that no match is lost between windows
+    private static final int WINDOW_OVERLAP = 512;
+    private static final int HEADER_SCAN_LIMIT = 1024;
+    private static final int TRAILER_SCAN_LIMIT = 2048;
+
+    private static final String NUMBER = "(-?\\d*\\.?\\d+)";
+    private static final Pattern PAGE_OBJECT = Pattern.compile("/Type\\s*/Page(?![A-Za-z])");
+    private static final Pattern MEDIA_BOX = Pattern.compile(
+            "/MediaBox\\s*\\[\\s*" + NUMBER + "\\s+" + NUMBER + "\\s+" + NUMBER + "\\s+" + NUMBER + "\\s*\\]");
+
+    @Value("${firma.preflight.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Validate the document and every signature position of the request
+     */
+    public PdfInfo validate(FirmaRequest request) {
+        return validate(request, null);
+    }
+
+    /**
+     * Validate the signature positions against an already scanned document (a template),
+     * or scan the content first if {@code known} is null
+     */
+    public PdfInfo validate(FirmaRequest request, PdfInfo known) {
+        if (!enabled) {
+            return null;
+        }
+        long start = System.nanoTime();
+        PdfInfo info = known != null ? known : inspect(request.getContent());
+        validateSignPositions(info, request.getMembers());
+        log.debug("Pre-flight passed in {} µs: {} bytes, {} pages",
+                (System.nanoTime() - start) / 1000, info.getSize(), info.getPageCount());
+        return info;
+    }
+
+    /**
+     * Stream the document content and collect the PDF structure
+     */
+    public PdfInfo inspect(DocumentPayload content) {
+        try (InputStream pdf = content.openStream()) {
+            return inspect(pdf);
+        } catch (IOException e) {
+            // Reported like any other unreadable document instead of escaping as a server error
+            throw new PdfValidationException("Cannot read document content: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scan a raw PDF stream: header, trailer, page objects and media boxes
+     */
+    public PdfInfo inspect(InputStream pdf) throws IOException {
+        byte[] window = new byte[WINDOW_SIZE + WINDOW_OVERLAP];
+        byte[] tail = new byte[TRAILER_SCAN_LIMIT];
+        int tailLength = 0;
+
+        long size = 0;
+        PageScan scan = new PageScan();
+
+        int carried = 0;
+        boolean last = false;
+        int read;
+        while (!last && (read = readFully(pdf, window, carried, WINDOW_SIZE)) > 0) {
+            int length = carried + read;
+            if (size == 0) {
+                checkHeader(window, length);
+            }
+            size += read;
+            last = read < WINDOW_SIZE;
+
+            // Matches starting inside the carried region are counted by the next window
+            scan.scan(window, length, last ? length : length - WINDOW_OVERLAP);
+            tailLength = appendTail(tail, tailLength, window, carried, read);
+
+            carried = Math.min(WINDOW_OVERLAP, length);
+            System.arraycopy(window, length - carried, window, 0, carried);
+        }
+        if (!last && carried > 0) {
+            // Document size was an exact multiple of the window: flush the carried region
+            scan.scan(window, carried, carried);
+        }
+
+        if (size == 0) {
+            throw new PdfValidationException("PDF content is empty");
+        }
+        checkTrailer(tail, tailLength);
+
+        return new PdfInfo(size, scan.pages, scan.maxWidth, scan.maxHeight);
+    }
+
+    /**
+     * Check every SignPosition against the page count and page size found in the document
+     */
+    public void validateSignPositions(PdfInfo info, List<FirmaRequest.Member> members) {
+        if (members == null) {
+            return;
+        }
+        for (FirmaRequest.Member member : members) {
+            if (member.getSigns() == null) {
+                continue;
+            }
+            for (FirmaRequest.SignPosition sign : member.getSigns()) {
+                validateSignPosition(info, member, sign);
+            }
+        }
+    }
+
+    private void validateSignPosition(PdfInfo info, FirmaRequest.Member member, FirmaRequest.SignPosition sign) {
+        Integer page = sign.getPage();
+        if (page != null) {
+            if (page < 1) {
+                throw new PdfValidationException(String.format(
+                        "Member %s: signature page must start at 1, got %d", member.getEmail(), page));
+            }
+            if (info.isPageCountKnown() && page > info.getPageCount()) {
+                throw new PdfValidationException(String.format(
+                        "Member %s: signature page %d exceeds document page count %d",
+                        member.getEmail(), page, info.getPageCount()));
+            }
+        }
+
+        String position = sign.getPosition();
+        if (position == null || position.isBlank()) {
+            return;
+        }
+        String[] parts = position.split(",");
+        if (parts.length != 4) {
+            throw new PdfValidationException(String.format(
+                    "Member %s: signature position must be \"x1,y1,x2,y2\", got \"%s\"", member.getEmail(), position));
+        }
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new PdfValidationException(String.format(
+                    "Member %s: signature position \"%s\" is not numeric", member.getEmail(), position));
+        }
+        if (box[0] < 0 || box[1] < 0 || box[0] >= box[2] || box[1] >= box[3]) {
+            throw new PdfValidationException(String.format(
+                    "Member %s: signature position \"%s\" is not a valid bounding box", member.getEmail(), position));
+        }
+        if (info.isPageSizeKnown() && (box[2] > info.getMaxPageWidth() || box[3] > info.getMaxPageHeight())) {
+            throw new PdfValidationException(String.format(
+                    "Member %s: signature position \"%s\" lies outside the page (%.0f x %.0f)",
+                    member.getEmail(), position, info.getMaxPageWidth(), info.getMaxPageHeight()));
+        }
+    }
+
+    private static void checkHeader(byte[] buffer, int length) {
+        String head = new String(buffer, 0, Math.min(length, HEADER_SCAN_LIMIT), StandardCharsets.ISO_8859_1);
+        if (!head.contains("%PDF-")) {
+            throw new PdfValidationException("Content is not a PDF document (missing %PDF- header)");
+        }
+    }
+
+    private static void checkTrailer(byte[] tail, int length) {
+        String trailer = new String(tail, 0, length, StandardCharsets.ISO_8859_1);
+        if (!trailer.contains("%%EOF") || !trailer.contains("startxref")) {
+            throw new PdfValidationException("PDF document is truncated (missing trailer)");
+        }
+    }
+
+    private static int appendTail(byte[] tail, int tailLength, byte[] src, int offset, int length) {
+        if (length >= tail.length) {
+            System.arraycopy(src, offset + length - tail.length, tail, 0, tail.length);
+            return tail.length;
+        }
+        int keep = Math.min(tailLength, tail.length - length);
+        System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+        System.arraycopy(src, offset, tail, keep, length);
+        return keep + length;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int n = in.read(buffer, offset + total, length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Running page count and largest MediaBox over the scanned windows
+     */
+    private static class PageScan {
+        private int pages;
+        private double maxWidth;
+        private double maxHeight;
+
+        void scan(byte[] buffer, int length, int countLimit) {
+            String text = new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+
+            Matcher page = PAGE_OBJECT.matcher(text);
+            while (page.find() && page.start() < countLimit) {
+                pages++;
+            }
+            Matcher box = MEDIA_BOX.matcher(text);
+            while (box.find() && box.start() < countLimit) {
+                double width = Math.abs(Double.parseDouble(box.group(3)) - Double.parseDouble(box.group(1)));
+                double height = Math.abs(Double.parseDouble(box.group(4)) - Double.parseDouble(box.group(2)));
+                maxWidth = Math.max(maxWidth, width);
+                maxHeight = Math.max(maxHeight, height);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.openapi.firma.standin;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options as {@code key=value} or {@code --key=value}; durations
+ * like {@code 20ms}, sizes like {@code 256KB}
+ */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Args(String[] args) {
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got \"" + arg + "\"");
+            }
+            values.put(option.substring(0, separator), option.substring(separator + 1));
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        String value = values.get(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    Duration getDuration(String key, Duration defaultValue) {
+        String value = get(key, null);
+        return value != null ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    DataSize getDataSize(String key, DataSize defaultValue) {
+        String value = get(key, null);
+        return value != null ? DataSize.parse(value) : defaultValue;
+    }
+}
@@ -0,0 +1,310 @@
+package com.openapi.firma.standin;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.client.FirmaClient;
+import com.openapi.firma.client.OpenApiFirmaClient;
+import com.openapi.firma.client.ReactiveFirmaClientAdapter;
+import com.openapi.firma.client.SignedDocumentSink;
+import com.openapi.firma.client.UpstreamLane;
+import com.openapi.firma.client.UpstreamScheduler;
+import com.openapi.firma.client.WebClientFirmaClient;
+import com.openapi.firma.compression.CompressionMetrics;
+import com.openapi.firma.compression.DeflaterPool;
+import com.openapi.firma.compression.UpstreamCompression;
+import com.openapi.firma.config.CompressionProperties;
+import com.openapi.firma.config.FirmaClientProperties;
+import com.openapi.firma.config.OpenApiConfig;
+import com.openapi.firma.config.PayloadProperties;
+import com.openapi.firma.config.UpstreamProperties;
+import com.openapi.firma.dto.DownloadResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.payload.DocumentPayload;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives a production {@link FirmaClient} against a {@link FirmaStandInServer}
+ * over loopback HTTP and reports throughput and latency percentiles per scenario.
+ * Client, Jackson mapper and upstream scheduler are built as in the application,
+ * so serialization, connection handling and lane permits are all measured.
+ * <p>
+ * Arguments are {@code key=value}, all optional:
+ * <ul>
+ *     <li>{@code transport} blocking (RestTemplate) or reactive (WebClient), default blocking</li>
+ *     <li>{@code scenarios} comma separated among create, get, list, download, stream, audit</li>
+ *     <li>{@code concurrency} calling threads, default 16</li>
+ *     <li>{@code warm-up} and {@code duration} per scenario, default 3s and 10s</li>
+ *     <li>{@code upload-size} document sent by create, default 256KB</li>
+ *     <li>{@code upstream-gzip} true to gzip request bodies as with {@code firma.compression.upstream.enabled}</li>
+ *     <li>{@code log-level} of the client logs, default WARN</li>
+ *     <li>the stand-in options: latency, latency-jitter, bandwidth, error-rate, throttle-rate,
+ *     document-size, list-size, members</li>
+ * </ul>
+ * From the backend directory: {@code mvn -Pbenchmark verify -Dbenchmark.args="transport=reactive latency=50ms"}.
+ */
+public final class FirmaClientBenchmark {
+
+    private static final List<String> ALL_SCENARIOS = List.of("create", "get", "list", "download", "stream", "audit");
+
+    private FirmaClientBenchmark() {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        setLogLevel(args.get("log-level", "WARN"));
+
+        String transport = args.get("transport", "blocking");
+        int concurrency = args.getInt("concurrency", 16);
+        Duration warmUp = args.getDuration("warm-up", Duration.ofSeconds(3));
+        Duration duration = args.getDuration("duration", Duration.ofSeconds(10));
+        DataSize uploadSize = args.getDataSize("upload-size", DataSize.ofKilobytes(256));
+        boolean upstreamGzip = args.getBoolean("upstream-gzip", false);
+        List<String> scenarios = Arrays.stream(args.get("scenarios", String.join(",", ALL_SCENARIOS)).split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        for (String scenario : scenarios) {
+            if (!ALL_SCENARIOS.contains(scenario)) {
+                throw new IllegalArgumentException("Unknown scenario " + scenario + ", expected one of " + ALL_SCENARIOS);
+            }
+        }
+
+        StandInOptions options = StandInOptions.fromArgs(args);
+        ObjectMapper objectMapper = FirmaStandInServer.defaultObjectMapper();
+        byte[] upload = FirmaStandInServer.syntheticPdf((int) uploadSize.toBytes());
+
+        try (FirmaStandInServer standIn = FirmaStandInServer.start(options, objectMapper)) {
+            FirmaClient client = client(transport, standIn.baseUrl(), concurrency, upstreamGzip, objectMapper);
+
+            System.out.printf("firmadigitale client benchmark: %s transport, %d threads, latency %s, "
+                            + "bandwidth %s, error rate %.3f, throttle rate %.3f, upload %s%s, document %s%n",
+                    transport, concurrency, options.getLatency(), options.getBandwidth(),
+                    options.getErrorRate(), options.getThrottleRate(), uploadSize, upstreamGzip ? " gzip" : "",
+                    options.getDocumentSize());
+            System.out.printf("%-10s %10s %8s %10s %9s %9s %9s %9s %10s %10s%n",
+                    "scenario", "calls", "errors", "calls/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "in MB/s", "out MB/s");
+
+            for (String name : scenarios) {
+                Call call = scenario(name, client, standIn.seededIds(), upload);
+                run(call, concurrency, warmUp);
+                FirmaStandInServer.Stats before = standIn.stats();
+                Result result = run(call, concurrency, duration);
+                FirmaStandInServer.Stats after = standIn.stats();
+                print(name, result, before, after);
+            }
+        }
+        // Reactor Netty keeps non daemon threads around
+        System.exit(0);
+    }
+
+    private static FirmaClient client(String transport, String baseUrl, int concurrency, boolean upstreamGzip,
+                                      ObjectMapper objectMapper) {
+        OpenApiConfig config = new OpenApiConfig();
+        OpenApiConfig.Sandbox sandbox = new OpenApiConfig.Sandbox();
+        sandbox.setBaseUrl(baseUrl);
+        config.setSandbox(sandbox);
+        config.setEnvironment("sandbox");
+        config.setApiKey("benchmark");
+
+        // Every lane as wide as the benchmark, so the scheduler is measured but not the bottleneck
+        UpstreamProperties upstream = new UpstreamProperties();
+        upstream.setMaxConcurrent(concurrency);
+        for (UpstreamLane lane : UpstreamLane.values()) {
+            upstream.lane(lane).setMaxConcurrent(concurrency);
+            upstream.lane(lane).setMaxWait(Duration.ofMinutes(1));
+        }
+        MeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamScheduler scheduler = new UpstreamScheduler(upstream, config, registry);
+
+        CompressionProperties compressionProperties = new CompressionProperties();
+        compressionProperties.getUpstream().setEnabled(upstreamGzip);
+        UpstreamCompression compression = new UpstreamCompression(compressionProperties,
+                new DeflaterPool(compressionProperties, registry), new CompressionMetrics(registry));
+
+        return switch (transport) {
+            case "blocking" -> new OpenApiFirmaClient(config, objectMapper, scheduler, compression);
+            case "reactive" -> {
+                FirmaClientProperties properties = new FirmaClientProperties();
+                properties.getReactive().setMaxConnections(Math.max(concurrency, properties.getReactive().getMaxConnections()));
+                WebClient.Builder builder = WebClient.builder()
+                        .codecs(codecs -> {
+                            codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                            codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                        });
+                yield new ReactiveFirmaClientAdapter(new WebClientFirmaClient(
+                        builder, config, properties, objectMapper, new PayloadProperties(), scheduler, compression));
+            }
+            default -> throw new IllegalArgumentException("Unknown transport " + transport + ", expected blocking or reactive");
+        };
+    }
+
+    private static Call scenario(String name, FirmaClient client, List<String> ids, byte[] upload) {
+        return switch (name) {
+            case "create" -> () -> client.createFirmaRequest(signatureRequest(upload)).isSuccess();
+            case "get" -> () -> client.getFirmaRequestById(randomId(ids)).isSuccess();
+            case "list" -> () -> client.getAllFirmaRequests().isSuccess();
+            case "download" -> () -> {
+                DownloadResponse response = client.downloadSignedDocument(randomId(ids));
+                if (response.getContent() != null) {
+                    // Releases the spill file of large documents
+                    response.getContent().close();
+                }
+                return response.isSuccess() && response.getContent() != null;
+            };
+            case "stream" -> () -> client.streamSignedDocument(randomId(ids), new SignedDocumentSink() {
+                @Override
+                public OutputStream open(String id) {
+                    return OutputStream.nullOutputStream();
+                }
+
+                @Override
+                public void close(String id, boolean complete) {
+                }
+            });
+            case "audit" -> () -> client.getAuditTrail(randomId(ids)).isSuccess();
+            default -> throw new IllegalArgumentException("Unknown scenario " + name);
+        };
+    }
+
+    private static FirmaRequest signatureRequest(byte[] upload) {
+        FirmaRequest.Member member = FirmaRequest.Member.builder()
+                .firstname("Mario")
+                .lastname("Rossi")
+                .email("mario.rossi@example.com")
+                .phone("+393331234567")
+                .signs(List.of(FirmaRequest.SignPosition.builder().page(1).position("100,100,250,150").build()))
+                .build();
+        return FirmaRequest.builder()
+                .title("Benchmark")
+                .filename("benchmark.pdf")
+                .content(DocumentPayload.fromBytes(upload))
+                .members(new ArrayList<>(List.of(member)))
+                .build();
+    }
+
+    private static String randomId(List<String> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    /**
+     * Call in a loop on every thread until the deadline, recording each latency
+     */
+    private static Result run(Call call, int concurrency, Duration duration) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            List<Future<Samples>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(threads.submit(() -> {
+                    Samples samples = new Samples();
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = call.call();
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        samples.add(System.nanoTime() - begin, ok);
+                    }
+                    return samples;
+                }));
+            }
+
+            Samples all = new Samples();
+            for (Future<Samples> worker : workers) {
+                all.addAll(worker.get());
+            }
+            return all.result(System.nanoTime() - start);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static void print(String name, Result result, FirmaStandInServer.Stats before, FirmaStandInServer.Stats after) {
+        double seconds = result.elapsedNanos() / 1e9;
+        double mb = 1024.0 * 1024.0;
+        System.out.printf(Locale.ROOT, "%-10s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %10.2f %10.2f%n",
+                name, result.calls(), result.errors(), result.calls() / seconds,
+                result.p50Millis(), result.p90Millis(), result.p99Millis(), result.maxMillis(),
+                (after.bytesReceived() - before.bytesReceived()) / mb / seconds,
+                (after.bytesSent() - before.bytesSent()) / mb / seconds);
+    }
+
+    private static void setLogLevel(String level) {
+        if (LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME) instanceof ch.qos.logback.classic.Logger root) {
+            root.setLevel(Level.toLevel(level, Level.WARN));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        boolean call() throws Exception;
+    }
+
+    private record Result(long calls, long errors, long elapsedNanos,
+                          double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+    }
+
+    /**
+     * Latencies of one thread, merged and sorted once at the end
+     */
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        Result result(long elapsedNanos) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(count, errors, elapsedNanos,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    count > 0 ? sorted[count - 1] / 1e6 : 0);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.openapi.firma.standin;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openapi.firma.config.PayloadProperties;
+import com.openapi.firma.dto.ApiResponse;
+import com.openapi.firma.dto.FirmaRequest;
+import com.openapi.firma.dto.FirmaResponse;
+import com.openapi.firma.payload.DocumentPayloadModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local stand-in for the firmadigitale {@code /firma_elettronica} API on the JDK
+ * HTTP server, so the production clients can be measured over real sockets:
+ * create, list, get, download and audit, with configurable latency, bandwidth,
+ * injected 429/5xx answers and document sizes (see {@link StandInOptions}).
+ * <p>
+ * Bodies are streamed both ways: uploaded documents are decoded and counted, not
+ * kept, and every download serves the same synthetic PDF. Each exchange runs on
+ * its own virtual thread, so simulated latency costs no platform thread.
+ * <p>
+ * Standalone, to point the backend at it with
+ * {@code --openapi.firma.sandbox.base-url=http://localhost:9090}:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.openapi.firma.standin.FirmaStandInServer -Dexec.args="port=9090 latency=50ms"
+ * </pre>
+ */
+@Slf4j
+public class FirmaStandInServer implements AutoCloseable {
+
+    private static final String BASE_PATH = "/firma_elettronica";
+    private static final FirmaResponse.FirmaStatus[] SEED_STATUSES = {
+            FirmaResponse.FirmaStatus.created, FirmaResponse.FirmaStatus.started,
+            FirmaResponse.FirmaStatus.finished, FirmaResponse.FirmaStatus.finished,
+            FirmaResponse.FirmaStatus.refused, FirmaResponse.FirmaStatus.expired};
+
+    private final StandInOptions options;
+    private final ObjectMapper objectMapper;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] signedDocument;
+    private final Map<String, FirmaResponse> requests = new ConcurrentHashMap<>();
+    private final List<String> seededIds;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private FirmaStandInServer(StandInOptions options, ObjectMapper objectMapper) throws IOException {
+        this.options = options;
+        this.objectMapper = objectMapper;
+        this.signedDocument = syntheticPdf((int) options.getDocumentSize().toBytes());
+        this.seededIds = seed(options.getListSize());
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.getPort()), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext(BASE_PATH, this::handle);
+        this.server.start();
+    }
+
+    public static FirmaStandInServer start(StandInOptions options, ObjectMapper objectMapper) throws IOException {
+        FirmaStandInServer standIn = new FirmaStandInServer(options, objectMapper);
+        log.info("firmadigitale stand-in listening on {} (latency {}, bandwidth {}, error rate {}, throttle rate {})",
+                standIn.baseUrl(), options.getLatency(), options.getBandwidth(),
+                options.getErrorRate(), options.getThrottleRate());
+        return standIn;
+    }
+
+    public static void main(String[] args) throws Exception {
+        StandInOptions options = StandInOptions.fromArgs(new Args(args));
+        FirmaStandInServer standIn = start(options, defaultObjectMapper());
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            standIn.close();
+            stopped.countDown();
+        }));
+        System.out.println("firmadigitale stand-in listening on " + standIn.baseUrl());
+        stopped.await();
+    }
+
+    /**
+     * The mapper of the application (see JacksonConfig), without a Spring context
+     */
+    public static ObjectMapper defaultObjectMapper() {
+        PayloadProperties payload = new PayloadProperties();
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new DocumentPayloadModule(
+                        payload.getMemoryThreshold().toBytes(), Path.of(payload.getTempDir())))
+                .build();
+        objectMapper.getFactory().setStreamReadConstraints(
+                StreamReadConstraints.builder().maxStringLength(100_000_000).build());
+        return objectMapper;
+    }
+
+    /**
+     * Base URL to configure as {@code openapi.firma.sandbox.base-url}
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Ids of the requests present at startup
+     */
+    public List<String> seededIds() {
+        return seededIds;
+    }
+
+    public Stats stats() {
+        return new Stats(calls.get(), injectedFailures.get(), bytesReceived.get(), bytesSent.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        try (exchange) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                drain(exchange);
+                sendJson(exchange, 401, ApiResponse.error("Missing bearer token"));
+                return;
+            }
+
+            simulateLatency();
+            if (injectFailure(exchange)) {
+                return;
+            }
+            route(exchange);
+        } catch (Exception e) {
+            log.warn("Stand-in failed on {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(), e.toString());
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(BASE_PATH.length());
+        String[] segments = path.isEmpty() || path.equals("/") ? new String[0] : path.substring(1).split("/");
+
+        if ("POST".equals(method) && segments.length == 1 && "base".equals(segments[0])) {
+            create(exchange);
+            return;
+        }
+        if (!"GET".equals(method)) {
+            drain(exchange);
+            sendJson(exchange, 405, ApiResponse.error("Method not allowed"));
+            return;
+        }
+        if (segments.length == 0) {
+            List<FirmaResponse> all = new ArrayList<>(requests.values());
+            sendJson(exchange, 200, ApiResponse.success(all, all.size() + " requests"));
+            return;
+        }
+
+        FirmaResponse firma = requests.get(segments[0]);
+        if (firma == null) {
+            sendJson(exchange, 404, ApiResponse.error("Request not found with ID: " + segments[0]));
+        } else if (segments.length == 1) {
+            sendJson(exchange, 200, ApiResponse.success(firma, "OK"));
+        } else if (segments.length == 2 && "download".equals(segments[1])) {
+            download(exchange);
+        } else if (segments.length == 2 && "audit".equals(segments[1])) {
+            sendJson(exchange, 200, ApiResponse.success(audit(firma), "OK"));
+        } else {
+            sendJson(exchange, 404, ApiResponse.error("No such endpoint: " + path));
+        }
+    }
+
+    /**
+     * Parse the upload as a stream: the Base64 document is decoded and counted, never held
+     */
+    private void create(HttpExchange exchange) throws IOException {
+        String filename = null;
+        String title = null;
+        String description = null;
+        long contentBytes = 0;
+        List<FirmaRequest.Member> members = List.of();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(decodedBody(exchange))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                sendJson(exchange, 400, ApiResponse.error("Expected a JSON object"));
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "content" -> contentBytes = value == JsonToken.VALUE_STRING
+                            ? parser.readBinaryValue(OutputStream.nullOutputStream()) : 0;
+                    case "members" -> members = parser.readValueAs(new TypeReference<List<FirmaRequest.Member>>() {});
+                    case "filename" -> filename = parser.getValueAsString();
+                    case "title" -> title = parser.getValueAsString();
+                    case "description" -> description = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (contentBytes == 0 || members == null || members.isEmpty()) {
+            sendJson(exchange, 422, ApiResponse.error("content and members are required"));
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<FirmaResponse.MemberStatus> statuses = new ArrayList<>(members.size());
+        for (FirmaRequest.Member member : members) {
+            statuses.add(FirmaResponse.MemberStatus.builder()
+                    .firstname(member.getFirstname())
+                    .lastname(member.getLastname())
+                    .email(member.getEmail())
+                    .phone(member.getPhone())
+                    .status("pending")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .signLink("http://localhost/sign/" + UUID.randomUUID())
+                    .build());
+        }
+        FirmaResponse firma = FirmaResponse.builder()
+                .id(UUID.randomUUID().toString())
+                .filename(filename)
+                .title(title)
+                .description(description)
+                .members(statuses)
+                .status(FirmaResponse.FirmaStatus.created)
+                .build();
+        requests.put(firma.getId(), firma);
+        sendJson(exchange, 200, ApiResponse.success(firma, "Signature request created (" + contentBytes + " bytes)"));
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(responseBody(exchange))) {
+            generator.writeStartObject();
+            generator.writeFieldName("content");
+            generator.writeBinary(new ByteArrayInputStream(signedDocument), signedDocument.length);
+            generator.writeBooleanField("success", true);
+            generator.writeStringField("message", "Document downloaded successfully");
+            generator.writeEndObject();
+        }
+    }
+
+    private Map<String, Object> audit(FirmaResponse firma) {
+        LocalDateTime now = LocalDateTime.now();
+        return Map.of(
+                "requestId", firma.getId(),
+                "filename", firma.getFilename() != null ? firma.getFilename() : "",
+                "events", List.of(
+                        Map.of("timestamp", now.minusHours(1).toString(), "event", "Request created"),
+                        Map.of("timestamp", now.minusMinutes(30).toString(), "event", "Email sent to signers"),
+                        Map.of("timestamp", now.toString(), "event", "Document signed by all members")));
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long millis = options.getLatency().toMillis();
+        long jitter = options.getLatencyJitter().toMillis();
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * Answer 429 or 5xx for the configured fraction of calls
+     *
+     * @return true if the call was answered with a failure
+     */
+    private boolean injectFailure(HttpExchange exchange) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < options.getThrottleRate()) {
+            injectedFailures.incrementAndGet();
+            drain(exchange);
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendJson(exchange, 429, ApiResponse.error("Too many requests"));
+            return true;
+        }
+        if (roll < options.getThrottleRate() + options.getErrorRate()) {
+            injectedFailures.incrementAndGet();
+            drain(exchange);
+            boolean unavailable = ThreadLocalRandom.current().nextBoolean();
+            sendJson(exchange, unavailable ? 503 : 500,
+                    ApiResponse.error(unavailable ? "Service unavailable" : "Internal server error"));
+            return true;
+        }
+        return false;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, 0);
+        try (OutputStream out = responseBody(exchange)) {
+            objectMapper.writeValue(out, body);
+        }
+    }
+
+    /**
+     * Read what is left of the body, so the connection can be reused
+     */
+    private void drain(HttpExchange exchange) throws IOException {
+        try (InputStream in = requestBody(exchange)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * The request body, inflated when the client sent it with Content-Encoding: gzip
+     */
+    private InputStream decodedBody(HttpExchange exchange) throws IOException {
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        InputStream body = requestBody(exchange);
+        return encoding != null && encoding.trim().equalsIgnoreCase("gzip") ? new GZIPInputStream(body) : body;
+    }
+
+    private InputStream requestBody(HttpExchange exchange) {
+        InputStream counted = new FilterInputStream(exchange.getRequestBody()) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    bytesReceived.addAndGet(count);
+                }
+                return count;
+            }
+        };
+        long bandwidth = options.getBandwidth() != null ? options.getBandwidth().toBytes() : 0;
+        return bandwidth > 0 ? new ThrottledInputStream(counted, bandwidth) : counted;
+    }
+
+    private OutputStream responseBody(HttpExchange exchange) {
+        OutputStream counted = new FilterOutputStream(exchange.getResponseBody()) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytesSent.addAndGet(len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytesSent.incrementAndGet();
+            }
+        };
+        long bandwidth = options.getBandwidth() != null ? options.getBandwidth().toBytes() : 0;
+        return bandwidth > 0 ? new ThrottledOutputStream(counted, bandwidth) : counted;
+    }
+
+    private List<String> seed(int count) {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime createdAt = start.plusMinutes(i * 7L);
+            List<FirmaResponse.MemberStatus> members = new ArrayList<>();
+            for (int m = 0; m < options.getMembersPerRequest(); m++) {
+                members.add(FirmaResponse.MemberStatus.builder()
+                        .firstname("Nome" + m)
+                        .lastname("Cognome" + i)
+                        .email("firmatario" + i + "." + m + "@example.com")
+                        .phone("+39333" + String.format("%07d", i * 10 + m))
+                        .status(i % 2 == 0 ? "signed" : "pending")
+                        .createdAt(createdAt)
+                        .updatedAt(createdAt.plusHours(2))
+                        .signLink("http://localhost/sign/" + i + "/" + m)
+                        .build());
+            }
+            FirmaResponse firma = FirmaResponse.builder()
+                    .id(UUID.randomUUID().toString())
+                    .filename("contratto_" + i + ".pdf")
+                    .title("Contratto " + i)
+                    .members(members)
+                    .status(SEED_STATUSES[i % SEED_STATUSES.length])
+                    .build();
+            requests.put(firma.getId(), firma);
+            ids.add(firma.getId());
+        }
+        return List.copyOf(ids);
+    }
+
+    /**
+     * A structurally valid PDF of about {@code size} bytes: one page, padded with a comment stream
+     */
+    static byte[] syntheticPdf(int size) {
+        String head = "%PDF-1.4\n1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n"
+                + "2 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj\n"
+                + "3 0 obj << /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] >> endobj\n";
+        String tail = "\ntrailer << /Root 1 0 R >>\n%%EOF\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] pdf = new byte[Math.max(size, headBytes.length + tailBytes.length)];
+        System.arraycopy(headBytes, 0, pdf, 0, headBytes.length);
+        for (int i = headBytes.length; i < pdf.length - tailBytes.length; i++) {
+            pdf[i] = (byte) ((i % 64 == 0) ? '\n' : (i % 64 == 1 ? '%' : 'a' + (i % 26)));
+        }
+        System.arraycopy(tailBytes, 0, pdf, pdf.length - tailBytes.length, tailBytes.length);
+        return pdf;
+    }
+
+    public record Stats(long calls, long injectedFailures, long bytesReceived, long bytesSent) {
+    }
+}
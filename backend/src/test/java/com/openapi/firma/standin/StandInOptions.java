@@ -0,0 +1,79 @@
+package com.openapi.firma.standin;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Behaviour of {@link FirmaStandInServer}: response latency, link bandwidth,
+ * injected failures and payload sizes.
+ */
+@Data
+@Builder
+public class StandInOptions {
+
+    /**
+     * 0 picks a free port
+     */
+    @Builder.Default
+    private int port = 0;
+
+    /**
+     * Processing time added before every response, plus a uniform random jitter
+     */
+    @Builder.Default
+    private Duration latency = Duration.ofMillis(20);
+
+    @Builder.Default
+    private Duration latencyJitter = Duration.ZERO;
+
+    /**
+     * Per connection and direction, like a slow uplink; null or 0 is unthrottled
+     */
+    @Builder.Default
+    private DataSize bandwidth = DataSize.ofBytes(0);
+
+    /**
+     * Fraction of calls answered 500 or 503
+     */
+    @Builder.Default
+    private double errorRate = 0;
+
+    /**
+     * Fraction of calls answered 429 with Retry-After
+     */
+    @Builder.Default
+    private double throttleRate = 0;
+
+    /**
+     * Size of the signed document returned by /download
+     */
+    @Builder.Default
+    private DataSize documentSize = DataSize.ofKilobytes(256);
+
+    /**
+     * Signature requests present at startup, returned by the list endpoint
+     */
+    @Builder.Default
+    private int listSize = 100;
+
+    @Builder.Default
+    private int membersPerRequest = 2;
+
+    static StandInOptions fromArgs(Args args) {
+        StandInOptions defaults = StandInOptions.builder().build();
+        return StandInOptions.builder()
+                .port(args.getInt("port", defaults.getPort()))
+                .latency(args.getDuration("latency", defaults.getLatency()))
+                .latencyJitter(args.getDuration("latency-jitter", defaults.getLatencyJitter()))
+                .bandwidth(args.getDataSize("bandwidth", defaults.getBandwidth()))
+                .errorRate(args.getDouble("error-rate", defaults.getErrorRate()))
+                .throttleRate(args.getDouble("throttle-rate", defaults.getThrottleRate()))
+                .documentSize(args.getDataSize("document-size", defaults.getDocumentSize()))
+                .listSize(args.getInt("list-size", defaults.getListSize()))
+                .membersPerRequest(args.getInt("members", defaults.getMembersPerRequest()))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.openapi.firma.standin;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Paces reads to a fixed byte rate: the sender sees a slow uplink through TCP backpressure
+ */
+final class ThrottledInputStream extends FilterInputStream {
+
+    private static final int CHUNK = 8 * 1024;
+
+    private final long bytesPerSecond;
+    private final long startNanos = System.nanoTime();
+    private long read;
+
+    ThrottledInputStream(InputStream in, long bytesPerSecond) {
+        super(in);
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            pace(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = in.read(b, off, Math.min(len, CHUNK));
+        if (count > 0) {
+            pace(count);
+        }
+        return count;
+    }
+
+    private void pace(int bytes) throws IOException {
+        read += bytes;
+        long dueNanos = read * 1_000_000_000L / bytesPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 1_000_000) {
+            try {
+                Thread.sleep(aheadNanos / 1_000_000, (int) (aheadNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Throttled read interrupted");
+            }
+        }
+    }
+}
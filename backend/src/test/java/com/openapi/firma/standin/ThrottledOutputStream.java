@@ -0,0 +1,56 @@
+package com.openapi.firma.standin;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Paces writes to a fixed byte rate, the way a slow link would
+ */
+final class ThrottledOutputStream extends FilterOutputStream {
+
+    private static final int CHUNK = 8 * 1024;
+
+    private final long bytesPerSecond;
+    private final long startNanos = System.nanoTime();
+    private long written;
+
+    ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+        super(out);
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        pace(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int chunk = Math.min(len, CHUNK);
+            out.write(b, off, chunk);
+            pace(chunk);
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    private void pace(int bytes) throws IOException {
+        written += bytes;
+        long dueNanos = written * 1_000_000_000L / bytesPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 1_000_000) {
+            // Whatever is buffered must reach the wire at the paced rate too
+            out.flush();
+            try {
+                Thread.sleep(aheadNanos / 1_000_000, (int) (aheadNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Throttled write interrupted");
+            }
+        }
+    }
+}
@@ -3,9 +3,20 @@ import {
   FirmaRequest,
   FirmaResponse,
   ApiResponse,
-  DownloadResponse
+  DownloadResponse,
+  TemplateRequest,
+  TemplateResponse,
+  TemplateFirmaRequest
 } from '../types/firma';
 
+// Bodies above this size are gzipped before upload (the document travels as Base64)
+const COMPRESS_MIN_BYTES = 64 * 1024;
+
+interface EncodedBody {
+  data: string | Blob;
+  headers: Record<string, string>;
+}
+
 class FirmaApiService {
   private client: AxiosInstance;
 
@@ -42,13 +53,90 @@ class FirmaApiService {
     );
   }
 
+  /**
+   * Serialize a request body, gzipped when it is large and the browser can compress streams
+   */
+  private async encodeBody(body: unknown): Promise<EncodedBody> {
+    const json = JSON.stringify(body);
+    if (json.length < COMPRESS_MIN_BYTES || typeof CompressionStream === 'undefined') {
+      return { data: json, headers: {} };
+    }
+    const compressed = new Blob([json]).stream().pipeThrough(new CompressionStream('gzip'));
+    const data = await new Response(compressed).blob();
+    return {
+      data: new Blob([data], { type: 'application/json' }),
+      headers: { 'Content-Encoding': 'gzip' },
+    };
+  }
+
   /**
    * Create a new signature request
    */
   async createSignatureRequest(request: FirmaRequest): Promise<ApiResponse<FirmaResponse>> {
     try {
+      const body = await this.encodeBody(request);
       const response = await this.client.post<ApiResponse<FirmaResponse>>(
         '/firma',
+        body.data,
+        { headers: body.headers }
+      );
+      return response.data;
+    } catch (error: any) {
+      return {
+        data: null as any,
+        success: false,
+        error: error.response?.data?.error || error.message || 'Failed to create signature request'
+      };
+    }
+  }
+
+  /**
+   * Store a reusable document template
+   */
+  async createTemplate(request: TemplateRequest): Promise<ApiResponse<TemplateResponse>> {
+    try {
+      const body = await this.encodeBody(request);
+      const response = await this.client.post<ApiResponse<TemplateResponse>>(
+        '/firma/templates',
+        body.data,
+        { headers: body.headers }
+      );
+      return response.data;
+    } catch (error: any) {
+      return {
+        data: null as any,
+        success: false,
+        error: error.response?.data?.error || error.message || 'Failed to store template'
+      };
+    }
+  }
+
+  /**
+   * Get all stored templates
+   */
+  async getTemplates(): Promise<ApiResponse<TemplateResponse[]>> {
+    try {
+      const response = await this.client.get<ApiResponse<TemplateResponse[]>>('/firma/templates');
+      return response.data;
+    } catch (error: any) {
+      return {
+        data: [],
+        success: false,
+        error: error.response?.data?.error || error.message || 'Failed to fetch templates'
+      };
+    }
+  }
+
+  /**
+   * Create a signature request on a stored template, without uploading the document
+   */
+  async createSignatureRequestFromTemplate(
+    templateId: string,
+    request: TemplateFirmaRequest
+  ): Promise<ApiResponse<FirmaResponse>> {
+    try {
+      const response = await this.client.post<ApiResponse<FirmaResponse>>(
+        `/firma/templates/${templateId}/requests`,
         request
       );
       return response.data;
@@ -39,8 +39,9 @@ export const useFirmaStore = create<FirmaStore>((set, get) => ({
         }));
         return response.data;
       } else {
+        // success without data: accepted by the backend outbox, not yet sent upstream
         set({
-          error: response.error || 'Failed to create signature request',
+          error: response.error || response.message || 'Failed to create signature request',
           loading: false
         });
         return null;
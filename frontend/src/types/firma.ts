@@ -21,6 +21,41 @@ export interface SignPosition {
   position?: string; // Bounding box: "x1,y1,x2,y2"
 }
 
+export interface TemplateRequest {
+  name: string;
+  description?: string;
+  filename?: string;
+  content: string; // Base64 encoded PDF, uploaded once
+  layout?: SignerLayout[]; // Default signs, one slot per member in order
+}
+
+export interface SignerLayout {
+  role?: string;
+  signs: SignPosition[];
+}
+
+export interface TemplateResponse {
+  id: string;
+  name: string;
+  description?: string;
+  filename: string;
+  document?: { size: number; pageCount: number; maxPageWidth: number; maxPageHeight: number };
+  layout?: SignerLayout[];
+  createdAt: string;
+}
+
+export interface TemplateFirmaRequest {
+  title?: string;
+  description?: string;
+  ui?: string;
+  filename?: string;
+  members: TemplateMember[];
+  callback?: Callback;
+}
+
+// Members without signs take the positions of their template layout slot
+export type TemplateMember = Omit<Member, 'signs'> & { signs?: SignPosition[] };
+
 export interface Callback {
   field: string;
   url: string;